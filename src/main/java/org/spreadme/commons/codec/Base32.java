@@ -0,0 +1,72 @@
+/*
+ *    Copyright [2019] [shuwei.wang (c) wswill@foxmail.com]
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package org.spreadme.commons.codec;
+
+import java.io.ByteArrayOutputStream;
+
+/**
+ * Base32
+ * @author shuwei.wang
+ * @since 1.0.0
+ */
+public abstract class Base32 {
+
+	private static final Base32Encoder encoder = new Base32Encoder();
+
+	public static String toBase32String(byte[] data) {
+		char[] encoded = new char[encoder.getEncodedLength(data.length)];
+		encoder.encode(data, 0, data.length, encoded, 0);
+		return new String(encoded);
+	}
+
+	/**
+	 * fixed width base 32 encoding of an unsigned long, see {@link LongEncoder}
+	 *
+	 * @param value value
+	 * @return encoded long
+	 */
+	public static String toBase32String(long value) {
+		return encoder.toString(value);
+	}
+
+	/**
+	 * decode the base 32 encoded String data, whitespace characters anywhere in the data will be ignored.
+	 *
+	 * @param data data
+	 * @return a byte array representing the decoded data.
+	 */
+	public static byte[] decode(String data) {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try {
+			encoder.decode(data, out);
+		}
+		catch (Exception e) {
+			throw new DecoderException("unable to decode base 32 string: " + e.getMessage(), e);
+		}
+		return out.toByteArray();
+	}
+
+	/**
+	 * decode a base 32 encoded unsigned long
+	 *
+	 * @param data data
+	 * @return value
+	 */
+	public static long decodeLong(String data) {
+		return encoder.decodeLong(data);
+	}
+}
@@ -0,0 +1,381 @@
+/*
+ *    Copyright [2019] [shuwei.wang (c) wswill@foxmail.com]
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package org.spreadme.commons.codec;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * base32 encoder
+ * <p>RFC 4648 base 32 with padding, groups of 5 bytes are processed as one 40 bit word.
+ * Lower case characters are accepted when decoding.</p>
+ * @author shuwei.wang
+ * @since 1.0.0
+ */
+public class Base32Encoder implements Encoder, LongEncoder {
+
+	private static final byte[] STANDARD_ENCODING_TABLE = {
+			(byte) 'A', (byte) 'B', (byte) 'C', (byte) 'D', (byte) 'E', (byte) 'F', (byte) 'G', (byte) 'H',
+			(byte) 'I', (byte) 'J', (byte) 'K', (byte) 'L', (byte) 'M', (byte) 'N', (byte) 'O', (byte) 'P',
+			(byte) 'Q', (byte) 'R', (byte) 'S', (byte) 'T', (byte) 'U', (byte) 'V', (byte) 'W', (byte) 'X',
+			(byte) 'Y', (byte) 'Z', (byte) '2', (byte) '3', (byte) '4', (byte) '5', (byte) '6', (byte) '7'
+	};
+
+	// 13 characters of 5 bits hold the 64 bits of a long
+	private static final int LONG_ENCODED_LENGTH = 13;
+
+	// input bytes encoded per write when encoding to an OutputStream, a multiple of 5
+	private static final int CHUNK_SIZE = 5 * 1024;
+
+	protected final byte[] encodingTable;
+
+	protected byte padding = (byte) '=';
+
+	protected final boolean padded;
+
+	protected final byte[] decodingTable = new byte[256];
+
+	protected void initDecodingTable() {
+		for (int i = 0; i < decodingTable.length; i++) {
+			decodingTable[i] = (byte) 0xff;
+		}
+		for (int i = 0; i < encodingTable.length; i++) {
+			decodingTable[encodingTable[i]] = (byte) i;
+			decodingTable[Character.toLowerCase(encodingTable[i])] = (byte) i;
+		}
+	}
+
+	public Base32Encoder() {
+		this(STANDARD_ENCODING_TABLE, true);
+	}
+
+	/**
+	 * Create a base 32 variant
+	 *
+	 * @param encodingTable the 32 characters alphabet
+	 * @param padded whether the encoded output is padded
+	 */
+	protected Base32Encoder(byte[] encodingTable, boolean padded) {
+		if (encodingTable.length != 32) {
+			throw new IllegalArgumentException("base32 alphabet must have 32 characters");
+		}
+		this.encodingTable = encodingTable.clone();
+		this.padded = padded;
+		initDecodingTable();
+	}
+
+	/**
+	 * the exact length of the base 32 encoding of length bytes
+	 *
+	 * @param length input length
+	 * @return encoded length
+	 */
+	public int getEncodedLength(int length) {
+		return padded ? (length + 4) / 5 * 8 : (length * 8 + 4) / 5;
+	}
+
+	@Override
+	public int encode(byte[] data, int off, int length, OutputStream out) throws IOException {
+		byte[] buffer = new byte[getEncodedLength(Math.min(length, CHUNK_SIZE))];
+		int outLen = 0;
+		int end = off + length;
+		for (int i = off; i < end; i += CHUNK_SIZE) {
+			int encoded = encode(data, i, Math.min(CHUNK_SIZE, end - i), buffer, 0);
+			out.write(buffer, 0, encoded);
+			outLen += encoded;
+		}
+		return outLen;
+	}
+
+	/**
+	 * encode the input data into the given byte array, which must have room for
+	 * {@link #getEncodedLength(int)} bytes from outOff.
+	 *
+	 * @param data data
+	 * @param off off
+	 * @param length length
+	 * @param out output array
+	 * @param outOff output offset
+	 * @return the number of bytes produced.
+	 */
+	public int encode(byte[] data, int off, int length, byte[] out, int outOff) {
+		final byte[] table = encodingTable;
+		int modulus = length % 5;
+		int end = off + length - modulus;
+		int o = outOff;
+		for (int i = off; i < end; i += 5) {
+			long bits = (data[i] & 0xffL) << 32 | (data[i + 1] & 0xffL) << 24 | (data[i + 2] & 0xffL) << 16
+					| (data[i + 3] & 0xffL) << 8 | (data[i + 4] & 0xffL);
+			for (int shift = 35; shift >= 0; shift -= 5) {
+				out[o++] = table[(int) (bits >>> shift) & 0x1f];
+			}
+		}
+		if (modulus > 0) {
+			long bits = 0;
+			for (int i = 0; i < modulus; i++) {
+				bits |= (data[end + i] & 0xffL) << (32 - i * 8);
+			}
+			int chars = (modulus * 8 + 4) / 5;
+			for (int i = 0, shift = 35; i < chars; i++, shift -= 5) {
+				out[o++] = table[(int) (bits >>> shift) & 0x1f];
+			}
+			if (padded) {
+				for (int i = chars; i < 8; i++) {
+					out[o++] = padding;
+				}
+			}
+		}
+		return o - outOff;
+	}
+
+	/**
+	 * encode the input data into the given char array, which must have room for
+	 * {@link #getEncodedLength(int)} chars from outOff.
+	 *
+	 * @param data data
+	 * @param off off
+	 * @param length length
+	 * @param out output array
+	 * @param outOff output offset
+	 * @return the number of chars produced.
+	 */
+	public int encode(byte[] data, int off, int length, char[] out, int outOff) {
+		final byte[] table = encodingTable;
+		int modulus = length % 5;
+		int end = off + length - modulus;
+		int o = outOff;
+		for (int i = off; i < end; i += 5) {
+			long bits = (data[i] & 0xffL) << 32 | (data[i + 1] & 0xffL) << 24 | (data[i + 2] & 0xffL) << 16
+					| (data[i + 3] & 0xffL) << 8 | (data[i + 4] & 0xffL);
+			for (int shift = 35; shift >= 0; shift -= 5) {
+				out[o++] = (char) table[(int) (bits >>> shift) & 0x1f];
+			}
+		}
+		if (modulus > 0) {
+			long bits = 0;
+			for (int i = 0; i < modulus; i++) {
+				bits |= (data[end + i] & 0xffL) << (32 - i * 8);
+			}
+			int chars = (modulus * 8 + 4) / 5;
+			for (int i = 0, shift = 35; i < chars; i++, shift -= 5) {
+				out[o++] = (char) table[(int) (bits >>> shift) & 0x1f];
+			}
+			if (padded) {
+				for (int i = chars; i < 8; i++) {
+					out[o++] = (char) padding;
+				}
+			}
+		}
+		return o - outOff;
+	}
+
+	/**
+	 * strict decoding of base 32 data without whitespace into the given byte array, which must have room for
+	 * length * 5 / 8 bytes from outOff. Each block of 8 characters is validated by a single check.
+	 *
+	 * @param data data
+	 * @param off off
+	 * @param length length
+	 * @param out output array
+	 * @param outOff output offset
+	 * @return the number of bytes produced.
+	 * @throws IOException if the data contains whitespace or invalid characters
+	 */
+	public int decode(byte[] data, int off, int length, byte[] out, int outOff) throws IOException {
+		int end = off + length;
+		while (end > off && data[end - 1] == padding) {
+			end--;
+		}
+		int chars = (end - off) % 8;
+		if (chars == 1 || chars == 3 || chars == 6) {
+			throw new IOException("invalid base32 data length");
+		}
+		final byte[] table = decodingTable;
+		int last = end - chars;
+		int o = outOff;
+		for (int i = off; i < last; i += 8) {
+			long bits = 0;
+			int invalid = 0;
+			for (int j = i; j < i + 8; j++) {
+				int b = table[data[j] & 0xff];
+				invalid |= b;
+				bits = bits << 5 | (b & 0x1f);
+			}
+			if (invalid < 0) {
+				throw new IOException("invalid characters encountered in base32 data");
+			}
+			out[o] = (byte) (bits >>> 32);
+			out[o + 1] = (byte) (bits >>> 24);
+			out[o + 2] = (byte) (bits >>> 16);
+			out[o + 3] = (byte) (bits >>> 8);
+			out[o + 4] = (byte) bits;
+			o += 5;
+		}
+		if (chars > 0) {
+			long bits = 0;
+			int invalid = 0;
+			for (int j = last; j < end; j++) {
+				int b = table[data[j] & 0xff];
+				invalid |= b;
+				bits = bits << 5 | (b & 0x1f);
+			}
+			if (invalid < 0) {
+				throw new IOException("invalid characters encountered at end of base32 data");
+			}
+			bits <<= (8 - chars) * 5;
+			for (int i = 0, count = chars * 5 / 8; i < count; i++) {
+				out[o++] = (byte) (bits >>> (32 - i * 8));
+			}
+		}
+		return o - outOff;
+	}
+
+	/**
+	 * the exact decoded length of base 32 data without whitespace, padded or not
+	 *
+	 * @param data data
+	 * @param off off
+	 * @param length length
+	 * @return decoded length
+	 */
+	public int getDecodedLength(byte[] data, int off, int length) {
+		int end = off + length;
+		while (end > off && data[end - 1] == padding) {
+			end--;
+		}
+		return (end - off) * 5 / 8;
+	}
+
+	protected boolean ignore(int c) {
+		return c == '\n' || c == '\r' || c == '\t' || c == ' ';
+	}
+
+	/**
+	 * decode the base 32 encoded byte data writing it to the given output stream,
+	 * whitespace characters will be ignored.
+	 *
+	 * @return the number of bytes produced.
+	 */
+	@Override
+	public int decode(byte[] data, int off, int length, OutputStream out) throws IOException {
+		byte[] compact = new byte[length];
+		int compactLength = 0;
+		for (int i = off; i < off + length; i++) {
+			if (!ignore(data[i])) {
+				compact[compactLength++] = data[i];
+			}
+		}
+		byte[] decoded = new byte[getDecodedLength(compact, 0, compactLength)];
+		int decodedLength = decode(compact, 0, compactLength, decoded, 0);
+		out.write(decoded, 0, decodedLength);
+		return decodedLength;
+	}
+
+	/**
+	 * decode the base 32 encoded String data writing it to the given output stream,
+	 * whitespace characters will be ignored.
+	 *
+	 * @return the number of bytes produced.
+	 */
+	@Override
+	public int decode(String data, OutputStream out) throws IOException {
+		byte[] bytes = new byte[data.length()];
+		for (int i = 0; i < bytes.length; i++) {
+			char c = data.charAt(i);
+			if (c > 0x7f) {
+				throw new IOException("invalid characters encountered in base32 string");
+			}
+			bytes[i] = (byte) c;
+		}
+		return decode(bytes, 0, bytes.length, out);
+	}
+
+	@Override
+	public int encode(ByteBuffer src, ByteBuffer dst) {
+		int length = src.remaining();
+		int encodedLength = getEncodedLength(length);
+		if (dst.remaining() < encodedLength) {
+			throw new BufferOverflowException();
+		}
+		if (src.hasArray() && dst.hasArray()) {
+			encode(src.array(), src.arrayOffset() + src.position(), length, dst.array(), dst.arrayOffset() + dst.position());
+			src.position(src.limit());
+			dst.position(dst.position() + encodedLength);
+		}
+		else {
+			byte[] data = new byte[length];
+			src.duplicate().get(data);
+			byte[] encoded = new byte[encodedLength];
+			encode(data, 0, length, encoded, 0);
+			dst.put(encoded);
+			src.position(src.limit());
+		}
+		return encodedLength;
+	}
+
+	@Override
+	public int decode(ByteBuffer src, ByteBuffer dst) throws IOException {
+		byte[] data = new byte[src.remaining()];
+		src.duplicate().get(data);
+		ByteArrayOutputStream decoded = new ByteArrayOutputStream(data.length * 5 / 8);
+		decode(data, 0, data.length, decoded);
+		if (dst.remaining() < decoded.size()) {
+			throw new BufferOverflowException();
+		}
+		dst.put(decoded.toByteArray());
+		src.position(src.limit());
+		return decoded.size();
+	}
+
+	@Override
+	public int getLongEncodedLength() {
+		return LONG_ENCODED_LENGTH;
+	}
+
+	@Override
+	public int encode(long value, char[] out, int outOff) {
+		final byte[] table = encodingTable;
+		for (int i = LONG_ENCODED_LENGTH - 1; i >= 0; i--) {
+			out[outOff + i] = (char) table[(int) value & 0x1f];
+			value >>>= 5;
+		}
+		return LONG_ENCODED_LENGTH;
+	}
+
+	@Override
+	public long decodeLong(CharSequence data, int off, int length) {
+		if (length == 0 || length > LONG_ENCODED_LENGTH) {
+			throw new IllegalArgumentException("invalid base32 long length: " + length);
+		}
+		long value = 0;
+		int invalid = 0;
+		for (int i = off; i < off + length; i++) {
+			char c = data.charAt(i);
+			int b = c > 0xff ? -1 : decodingTable[c];
+			invalid |= b;
+			value = value << 5 | (b & 0x1f);
+		}
+		// 13 characters carry 65 bits, the first one may only hold the top 4
+		if (invalid < 0 || (length == LONG_ENCODED_LENGTH && decodingTable[data.charAt(off) & 0xff] > 0xf)) {
+			throw new IllegalArgumentException("invalid base32 long: " + data.subSequence(off, off + length));
+		}
+		return value;
+	}
+}
@@ -0,0 +1,71 @@
+/*
+ *    Copyright [2019] [shuwei.wang (c) wswill@foxmail.com]
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package org.spreadme.commons.codec;
+
+import java.io.ByteArrayOutputStream;
+
+/**
+ * Base62
+ * @author shuwei.wang
+ * @since 1.0.0
+ */
+public abstract class Base62 {
+
+	private static final Base62Encoder encoder = new Base62Encoder();
+
+	public static String toBase62String(byte[] data) {
+		return encoder.toString(data, 0, data.length);
+	}
+
+	/**
+	 * fixed width base 62 encoding of an unsigned long, see {@link LongEncoder}
+	 *
+	 * @param value value
+	 * @return encoded long
+	 */
+	public static String toBase62String(long value) {
+		return encoder.toString(value);
+	}
+
+	/**
+	 * decode the base 62 encoded String data, leading and trailing whitespace is trimmed
+	 * and any other character outside the alphabet is rejected.
+	 *
+	 * @param data data
+	 * @return a byte array representing the decoded data.
+	 */
+	public static byte[] decode(String data) {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try {
+			encoder.decode(data, out);
+		}
+		catch (Exception e) {
+			throw new DecoderException("unable to decode base 62 string: " + e.getMessage(), e);
+		}
+		return out.toByteArray();
+	}
+
+	/**
+	 * decode a base 62 encoded unsigned long
+	 *
+	 * @param data data
+	 * @return value
+	 */
+	public static long decodeLong(String data) {
+		return encoder.decodeLong(data);
+	}
+}
@@ -0,0 +1,35 @@
+/*
+ *    Copyright [2019] [shuwei.wang (c) wswill@foxmail.com]
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package org.spreadme.commons.codec;
+
+import org.spreadme.commons.lang.Charsets;
+
+/**
+ * base62 encoder
+ * <p>digits, upper and lower case letters, the shortest encoding made of alphanumerics only.
+ * The alphabet is ordered, so fixed width encoded longs sort like the values.</p>
+ * @author shuwei.wang
+ * @since 1.0.0
+ */
+public class Base62Encoder extends RadixEncoder {
+
+	private static final byte[] ENCODING_TABLE = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz".getBytes(Charsets.US_ASCII);
+
+	public Base62Encoder() {
+		super(ENCODING_TABLE);
+	}
+}
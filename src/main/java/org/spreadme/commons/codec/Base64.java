@@ -19,25 +19,39 @@ package org.spreadme.commons.codec;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.util.concurrent.ForkJoinPool;
 
-import org.spreadme.commons.util.StringUtil;
+import org.spreadme.commons.lang.Charsets;
 
 /**
  * Base64
+ * <p>inputs of 4 MB or more are split into aligned chunks
+ * encoded and decoded in parallel on the common {@link ForkJoinPool}</p>
  * @author shuwei.wang
  * @since 1.0.0
  */
 public abstract class Base64 {
 
-	private static final Encoder encoder = new Base64Encoder();
+	// inputs from this length on are encoded and decoded in parallel on the common pool
+	static final int PARALLEL_THRESHOLD = 4 * 1024 * 1024;
+
+	private static final Base64Encoder encoder = new Base64Encoder();
 
 	public static String toBase64String(byte[] data) {
 		return toBase64String(data, 0, data.length);
 	}
 
 	public static String toBase64String(byte[] data, int off, int length) {
-		byte[] encoded = encode(data, off, length);
-		return StringUtil.fromByteArray(encoded);
+		return toBase64String(encoder, data, off, length);
+	}
+
+	static String toBase64String(Base64Encoder encoder, byte[] data, int off, int length) {
+		if (isParallel(length)) {
+			return new String(encode(encoder, data, off, length), Charsets.US_ASCII);
+		}
+		char[] encoded = new char[encoder.getEncodedLength(length)];
+		encoder.encode(data, off, length, encoded, 0);
+		return new String(encoded);
 	}
 
 	/**
@@ -59,15 +73,22 @@ public abstract class Base64 {
 	 * @return a byte array containing the base 64 encoded data.
 	 */
 	public static byte[] encode(byte[] data, int off, int length) {
-		int len = (length + 2) / 3 * 4;
-		ByteArrayOutputStream bOut = new ByteArrayOutputStream(len);
-		try {
-			encoder.encode(data, off, length, bOut);
+		return encode(encoder, data, off, length);
+	}
+
+	static byte[] encode(Base64Encoder encoder, byte[] data, int off, int length) {
+		byte[] encoded = new byte[encoder.getEncodedLength(length)];
+		if (isParallel(length)) {
+			encoder.encode(data, off, length, encoded, 0, ForkJoinPool.commonPool());
 		}
-		catch (Exception e) {
-			throw new EncoderException("exception encoding base64 string: " + e.getMessage(), e);
+		else {
+			encoder.encode(data, off, length, encoded, 0);
 		}
-		return bOut.toByteArray();
+		return encoded;
+	}
+
+	private static boolean isParallel(int length) {
+		return length >= PARALLEL_THRESHOLD && ForkJoinPool.getCommonPoolParallelism() > 1;
 	}
 
 	/**
@@ -103,6 +124,26 @@ public abstract class Base64 {
 	 * @return a byte array representing the decoded data.
 	 */
 	public static byte[] decode(byte[] data) {
+		return decode(encoder, data);
+	}
+
+	static byte[] decode(Base64Encoder encoder, byte[] data) {
+		int decodedLength = encoder.getDecodedLength(data, 0, data.length);
+		if (decodedLength >= 0) {
+			byte[] decoded = new byte[decodedLength];
+			try {
+				if (isParallel(data.length)) {
+					encoder.decode(data, 0, data.length, decoded, 0, ForkJoinPool.commonPool());
+				}
+				else {
+					encoder.decode(data, 0, data.length, decoded, 0);
+				}
+				return decoded;
+			}
+			catch (IOException ignore) {
+				// whitespace or invalid characters, let the lenient decoder sort it out
+			}
+		}
 		int len = data.length / 4 * 3;
 		ByteArrayOutputStream bOut = new ByteArrayOutputStream(len);
 		try {
@@ -121,6 +162,26 @@ public abstract class Base64 {
 	 * @return a byte array representing the decoded data.
 	 */
 	public static byte[] decode(String data) {
+		return decode(encoder, data);
+	}
+
+	static byte[] decode(Base64Encoder encoder, String data) {
+		int decodedLength = encoder.getDecodedLength(data);
+		if (decodedLength >= 0) {
+			byte[] decoded = new byte[decodedLength];
+			try {
+				if (isParallel(data.length())) {
+					encoder.decode(data, decoded, 0, ForkJoinPool.commonPool());
+				}
+				else {
+					encoder.decode(data, decoded, 0);
+				}
+				return decoded;
+			}
+			catch (IOException ignore) {
+				// whitespace or invalid characters, let the lenient decoder sort it out
+			}
+		}
 		int len = data.length() / 4 * 3;
 		ByteArrayOutputStream bOut = new ByteArrayOutputStream(len);
 		try {
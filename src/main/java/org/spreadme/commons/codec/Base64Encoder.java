@@ -18,15 +18,22 @@ package org.spreadme.commons.codec;
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 /**
  *  base64 encoder
+ *  <p>table driven core shared by the base 64 variants, a variant is an alphabet,
+ *  whether the output is padded and the length of its lines</p>
  * @author shuwei.wang
  * @since 1.0.0
  */
 public class Base64Encoder implements Encoder {
 
-	protected final byte[] encodingTable = {
+	static final byte[] STANDARD_ENCODING_TABLE = {
 			(byte) 'A', (byte) 'B', (byte) 'C', (byte) 'D', (byte) 'E', (byte) 'F', (byte) 'G',
 			(byte) 'H', (byte) 'I', (byte) 'J', (byte) 'K', (byte) 'L', (byte) 'M', (byte) 'N',
 			(byte) 'O', (byte) 'P', (byte) 'Q', (byte) 'R', (byte) 'S', (byte) 'T', (byte) 'U',
@@ -40,9 +47,25 @@ public class Base64Encoder implements Encoder {
 			(byte) '+', (byte) '/'
 	};
 
+	// input bytes encoded per write when encoding to an OutputStream, a multiple of 3
+	private static final int CHUNK_SIZE = 3 * 1024;
+
+	// input bytes per task when encoding on a ForkJoinPool, a multiple of 3
+	private static final int PARALLEL_CHUNK_SIZE = 3 * 256 * 1024;
+
+	protected final byte[] encodingTable;
+
 	protected byte padding = (byte) '=';
 
-	protected final byte[] decodingTable = new byte[128];
+	// whether the encoded output ends with padding, the decoder accepts both forms
+	protected final boolean padded;
+
+	// the maximum length of an encoded line, 0 for no line wrapping
+	protected final int lineLength;
+
+	protected final byte[] lineSeparator;
+
+	protected final byte[] decodingTable = new byte[256];
 
 	protected void initDecodingTable() {
 		for (int i = 0; i < decodingTable.length; i++) {
@@ -54,246 +77,785 @@ public class Base64Encoder implements Encoder {
 	}
 
 	public Base64Encoder() {
+		this(STANDARD_ENCODING_TABLE, true, 0, new byte[0]);
+	}
+
+	/**
+	 * Create a base 64 variant
+	 *
+	 * @param encodingTable the 64 characters alphabet
+	 * @param padded whether the encoded output is padded
+	 * @param lineLength the maximum length of an encoded line, a multiple of 4, 0 for no line wrapping
+	 * @param lineSeparator the line separator
+	 */
+	protected Base64Encoder(byte[] encodingTable, boolean padded, int lineLength, byte[] lineSeparator) {
+		if (encodingTable.length != 64) {
+			throw new IllegalArgumentException("base64 alphabet must have 64 characters");
+		}
+		if (lineLength < 0 || lineLength % 4 != 0) {
+			throw new IllegalArgumentException("line length must be a multiple of 4");
+		}
+		this.encodingTable = encodingTable.clone();
+		this.padded = padded;
+		this.lineLength = lineLength;
+		this.lineSeparator = lineSeparator.clone();
 		initDecodingTable();
 	}
 
+	public int getLineLength() {
+		return lineLength;
+	}
+
+	public byte[] getLineSeparator() {
+		return lineSeparator.clone();
+	}
+
+	/**
+	 * the exact length of the base 64 encoding of length bytes
+	 *
+	 * @param length input length
+	 * @return encoded length
+	 */
+	public int getEncodedLength(int length) {
+		int encodedLength = getBlocksLength(length);
+		if (lineLength > 0 && encodedLength > 0) {
+			encodedLength += (encodedLength - 1) / lineLength * lineSeparator.length;
+		}
+		return encodedLength;
+	}
+
 	/**
 	 * encode the input data producing a base 64 output stream.
 	 *
 	 * @return the number of bytes produced.
 	 */
 	public int encode(byte[] data, int off, int length, OutputStream out) throws IOException {
-		int modulus = length % 3;
-		int dataLength = (length - modulus);
-		int a1, a2, a3;
-		for (int i = off; i < off + dataLength; i += 3) {
-			a1 = data[i] & 0xff;
-			a2 = data[i + 1] & 0xff;
-			a3 = data[i + 2] & 0xff;
-
-			out.write(encodingTable[(a1 >>> 2) & 0x3f]);
-			out.write(encodingTable[((a1 << 4) | (a2 >>> 4)) & 0x3f]);
-			out.write(encodingTable[((a2 << 2) | (a3 >>> 6)) & 0x3f]);
-			out.write(encodingTable[a3 & 0x3f]);
-		}
-
-		// process the tail end.
-		int b1, b2, b3;
-		int d1, d2;
-
-		switch (modulus) {
-			case 0:
-				// nothing left to do
-				break;
-			case 1:
-				d1 = data[off + dataLength] & 0xff;
-				b1 = (d1 >>> 2) & 0x3f;
-				b2 = (d1 << 4) & 0x3f;
-
-				out.write(encodingTable[b1]);
-				out.write(encodingTable[b2]);
-				out.write(padding);
-				out.write(padding);
-				break;
-			case 2:
-				d1 = data[off + dataLength] & 0xff;
-				d2 = data[off + dataLength + 1] & 0xff;
-
-				b1 = (d1 >>> 2) & 0x3f;
-				b2 = ((d1 << 4) | (d2 >>> 4)) & 0x3f;
-				b3 = (d2 << 2) & 0x3f;
-
-				out.write(encodingTable[b1]);
-				out.write(encodingTable[b2]);
-				out.write(encodingTable[b3]);
-				out.write(padding);
-				break;
-		}
-
-		return (dataLength / 3) * 4 + ((modulus == 0) ? 0 : 4);
-	}
-
-	private boolean ignore(char c) {
-		return (c == '\n' || c == '\r' || c == '\t' || c == ' ');
+		int chunkSize = CHUNK_SIZE;
+		if (lineLength > 0) {
+			// whole lines per chunk so that line breaks fall between chunks
+			int lineBytes = lineLength / 4 * 3;
+			chunkSize = Math.max(1, CHUNK_SIZE / lineBytes) * lineBytes;
+		}
+		byte[] buffer = new byte[getEncodedLength(Math.min(length, chunkSize))];
+		int outLen = 0;
+		int end = off + length;
+		for (int i = off; i < end; i += chunkSize) {
+			if (i > off && lineLength > 0) {
+				out.write(lineSeparator);
+				outLen += lineSeparator.length;
+			}
+			int encoded = encode(data, i, Math.min(chunkSize, end - i), buffer, 0);
+			out.write(buffer, 0, encoded);
+			outLen += encoded;
+		}
+		return outLen;
 	}
 
 	/**
-	 * decode the base 64 encoded byte data writing it to the given output stream,
-	 * whitespace characters will be ignored.
+	 * encode the input data into the given byte array, which must have room for
+	 * {@link #getEncodedLength(int)} bytes from outOff.
 	 *
+	 * @param data data
+	 * @param off off
+	 * @param length length
+	 * @param out output array
+	 * @param outOff output offset
 	 * @return the number of bytes produced.
 	 */
-	public int decode(byte[] data, int off, int length, OutputStream out) throws IOException {
-		byte b1, b2, b3, b4;
-		int outLen = 0;
-
+	public int encode(byte[] data, int off, int length, byte[] out, int outOff) {
+		if (lineLength == 0) {
+			return encodeBlocks(data, off, length, out, outOff);
+		}
+		int lineBytes = lineLength / 4 * 3;
 		int end = off + length;
+		int o = outOff;
+		for (int i = off; i < end; i += lineBytes) {
+			if (i > off) {
+				System.arraycopy(lineSeparator, 0, out, o, lineSeparator.length);
+				o += lineSeparator.length;
+			}
+			o += encodeBlocks(data, i, Math.min(lineBytes, end - i), out, o);
+		}
+		return o - outOff;
+	}
 
-		while (end > off) {
-			if (!ignore((char) data[end - 1])) {
-				break;
+	/**
+	 * encode the input data into the given char array, which must have room for
+	 * {@link #getEncodedLength(int)} chars from outOff.
+	 *
+	 * @param data data
+	 * @param off off
+	 * @param length length
+	 * @param out output array
+	 * @param outOff output offset
+	 * @return the number of chars produced.
+	 */
+	public int encode(byte[] data, int off, int length, char[] out, int outOff) {
+		if (lineLength == 0) {
+			return encodeBlocks(data, off, length, out, outOff);
+		}
+		int lineBytes = lineLength / 4 * 3;
+		int end = off + length;
+		int o = outOff;
+		for (int i = off; i < end; i += lineBytes) {
+			if (i > off) {
+				for (byte separator : lineSeparator) {
+					out[o++] = (char) separator;
+				}
 			}
-			end--;
+			o += encodeBlocks(data, i, Math.min(lineBytes, end - i), out, o);
 		}
+		return o - outOff;
+	}
 
-		// empty data!
-		if (end == 0) {
-			return 0;
+	@Override
+	public int encode(ByteBuffer src, ByteBuffer dst) {
+		int length = src.remaining();
+		int encodedLength = getEncodedLength(length);
+		if (dst.remaining() < encodedLength) {
+			throw new BufferOverflowException();
+		}
+		if (src.hasArray() && dst.hasArray()) {
+			encode(src.array(), src.arrayOffset() + src.position(), length,
+					dst.array(), dst.arrayOffset() + dst.position());
+		}
+		else {
+			int lineBytes = lineLength == 0 ? length : lineLength / 4 * 3;
+			int off = src.position();
+			int end = off + length;
+			int o = dst.position();
+			for (int i = off; i < end; i += lineBytes) {
+				if (i > off) {
+					for (byte separator : lineSeparator) {
+						dst.put(o++, separator);
+					}
+				}
+				o += encodeBlocks(src, i, Math.min(lineBytes, end - i), dst, o);
+			}
 		}
+		src.position(src.limit());
+		dst.position(dst.position() + encodedLength);
+		return encodedLength;
+	}
 
-		int i = 0;
-		int finish = end;
+	/**
+	 * the length of the encoding without line separators
+	 */
+	int getBlocksLength(int length) {
+		return padded ? (length + 2) / 3 * 4 : (length * 4 + 2) / 3;
+	}
 
-		while (finish > off && i != 4) {
-			if (!ignore((char) data[finish - 1])) {
-				i++;
+	/**
+	 * encode without line wrapping, groups of 3 bytes are processed as one 24 bit word
+	 */
+	int encodeBlocks(byte[] data, int off, int length, byte[] out, int outOff) {
+		final byte[] table = encodingTable;
+		int modulus = length % 3;
+		int end = off + length - modulus;
+		int o = outOff;
+		for (int i = off; i < end; i += 3) {
+			int bits = (data[i] & 0xff) << 16 | (data[i + 1] & 0xff) << 8 | (data[i + 2] & 0xff);
+			out[o] = table[bits >>> 18];
+			out[o + 1] = table[(bits >>> 12) & 0x3f];
+			out[o + 2] = table[(bits >>> 6) & 0x3f];
+			out[o + 3] = table[bits & 0x3f];
+			o += 4;
+		}
+		if (modulus == 1) {
+			int d1 = data[end] & 0xff;
+			out[o++] = table[d1 >>> 2];
+			out[o++] = table[(d1 << 4) & 0x3f];
+			if (padded) {
+				out[o++] = padding;
+				out[o++] = padding;
 			}
-			finish--;
 		}
+		else if (modulus == 2) {
+			int d1 = data[end] & 0xff;
+			int d2 = data[end + 1] & 0xff;
+			out[o++] = table[d1 >>> 2];
+			out[o++] = table[((d1 << 4) | (d2 >>> 4)) & 0x3f];
+			out[o++] = table[(d2 << 2) & 0x3f];
+			if (padded) {
+				out[o++] = padding;
+			}
+		}
+		return o - outOff;
+	}
 
-		i = nextI(data, off, finish);
-
-		while (i < finish) {
-			b1 = decodingTable[data[i++]];
-			i = nextI(data, i, finish);
-			b2 = decodingTable[data[i++]];
-			i = nextI(data, i, finish);
-			b3 = decodingTable[data[i++]];
-			i = nextI(data, i, finish);
-			b4 = decodingTable[data[i++]];
+	/**
+	 * encode without line wrapping, groups of 3 bytes are processed as one 24 bit word
+	 */
+	int encodeBlocks(byte[] data, int off, int length, char[] out, int outOff) {
+		final byte[] table = encodingTable;
+		int modulus = length % 3;
+		int end = off + length - modulus;
+		int o = outOff;
+		for (int i = off; i < end; i += 3) {
+			int bits = (data[i] & 0xff) << 16 | (data[i + 1] & 0xff) << 8 | (data[i + 2] & 0xff);
+			out[o] = (char) table[bits >>> 18];
+			out[o + 1] = (char) table[(bits >>> 12) & 0x3f];
+			out[o + 2] = (char) table[(bits >>> 6) & 0x3f];
+			out[o + 3] = (char) table[bits & 0x3f];
+			o += 4;
+		}
+		if (modulus == 1) {
+			int d1 = data[end] & 0xff;
+			out[o++] = (char) table[d1 >>> 2];
+			out[o++] = (char) table[(d1 << 4) & 0x3f];
+			if (padded) {
+				out[o++] = (char) padding;
+				out[o++] = (char) padding;
+			}
+		}
+		else if (modulus == 2) {
+			int d1 = data[end] & 0xff;
+			int d2 = data[end + 1] & 0xff;
+			out[o++] = (char) table[d1 >>> 2];
+			out[o++] = (char) table[((d1 << 4) | (d2 >>> 4)) & 0x3f];
+			out[o++] = (char) table[(d2 << 2) & 0x3f];
+			if (padded) {
+				out[o++] = (char) padding;
+			}
+		}
+		return o - outOff;
+	}
 
-			if ((b1 | b2 | b3 | b4) < 0) {
-				throw new IOException("invalid characters encountered in base64 data");
+	/**
+	 * encode without line wrapping using absolute buffer access, for direct and read only buffers
+	 */
+	int encodeBlocks(ByteBuffer data, int off, int length, ByteBuffer out, int outOff) {
+		final byte[] table = encodingTable;
+		int modulus = length % 3;
+		int end = off + length - modulus;
+		int o = outOff;
+		for (int i = off; i < end; i += 3) {
+			int bits = (data.get(i) & 0xff) << 16 | (data.get(i + 1) & 0xff) << 8 | (data.get(i + 2) & 0xff);
+			out.put(o, table[bits >>> 18]);
+			out.put(o + 1, table[(bits >>> 12) & 0x3f]);
+			out.put(o + 2, table[(bits >>> 6) & 0x3f]);
+			out.put(o + 3, table[bits & 0x3f]);
+			o += 4;
+		}
+		if (modulus == 1) {
+			int d1 = data.get(end) & 0xff;
+			out.put(o++, table[d1 >>> 2]);
+			out.put(o++, table[(d1 << 4) & 0x3f]);
+			if (padded) {
+				out.put(o++, padding);
+				out.put(o++, padding);
+			}
+		}
+		else if (modulus == 2) {
+			int d1 = data.get(end) & 0xff;
+			int d2 = data.get(end + 1) & 0xff;
+			out.put(o++, table[d1 >>> 2]);
+			out.put(o++, table[((d1 << 4) | (d2 >>> 4)) & 0x3f]);
+			out.put(o++, table[(d2 << 2) & 0x3f]);
+			if (padded) {
+				out.put(o++, padding);
 			}
+		}
+		return o - outOff;
+	}
 
-			out.write((b1 << 2) | (b2 >> 4));
-			out.write((b2 << 4) | (b3 >> 2));
-			out.write((b3 << 6) | b4);
-			outLen += 3;
-			i = nextI(data, i, finish);
+	/**
+	 * the exact decoded length of base 64 data without whitespace, padded or not
+	 *
+	 * @param data data
+	 * @param off off
+	 * @param length length
+	 * @return decoded length, or -1 if no base 64 data has this length
+	 */
+	public int getDecodedLength(byte[] data, int off, int length) {
+		int modulus = length % 4;
+		if (modulus == 1) {
+			return -1;
+		}
+		if (modulus != 0) {
+			return length / 4 * 3 + modulus - 1;
 		}
+		int end = off + length;
+		int pads = length == 0 || data[end - 1] != padding ? 0 : (data[end - 2] == padding ? 2 : 1);
+		return length / 4 * 3 - pads;
+	}
 
-		int e0 = nextI(data, i, end);
-		int e1 = nextI(data, e0 + 1, end);
-		int e2 = nextI(data, e1 + 1, end);
-		int e3 = nextI(data, e2 + 1, end);
-		outLen += decodeLastBlock(out, (char) data[e0], (char) data[e1], (char) data[e2], (char) data[e3]);
-		return outLen;
+	/**
+	 * the exact decoded length of base 64 data without whitespace, padded or not
+	 *
+	 * @param data data
+	 * @return decoded length, or -1 if no base 64 data has this length
+	 */
+	public int getDecodedLength(String data) {
+		int length = data.length();
+		int modulus = length % 4;
+		if (modulus == 1) {
+			return -1;
+		}
+		if (modulus != 0) {
+			return length / 4 * 3 + modulus - 1;
+		}
+		int pads = length == 0 || data.charAt(length - 1) != padding ? 0 : (data.charAt(length - 2) == padding ? 2 : 1);
+		return length / 4 * 3 - pads;
 	}
 
-	private int nextI(byte[] data, int i, int finish) {
-		while ((i < finish) && ignore((char) data[i])) {
-			i++;
+	/**
+	 * strict decoding of base 64 data without whitespace into the given byte array, which must have room for
+	 * {@link #getDecodedLength(byte[], int, int)} bytes from outOff. Each block of 4 characters
+	 * is validated by a single check of its OR-accumulated table values.
+	 *
+	 * @param data data
+	 * @param off off
+	 * @param length length
+	 * @param out output array
+	 * @param outOff output offset
+	 * @return the number of bytes produced.
+	 * @throws IOException if the data contains whitespace or invalid characters
+	 */
+	public int decode(byte[] data, int off, int length, byte[] out, int outOff) throws IOException {
+		int modulus = length % 4;
+		if (modulus == 1) {
+			throw new IOException("invalid base64 data length");
+		}
+		if (length == 0) {
+			return 0;
+		}
+		int last = off + length - (modulus == 0 ? 4 : modulus);
+		int o = decodeBlocks(data, off, last, out, outOff);
+		if (modulus == 0) {
+			o += decodeLastBlock(out, o, data[last], data[last + 1], data[last + 2], data[last + 3]);
+		}
+		else {
+			o += decodeUnpaddedBlock(out, o, data[last], data[last + 1],
+					modulus == 3 ? data[last + 2] : 0, modulus);
 		}
-		return i;
+		return o - outOff;
 	}
 
 	/**
-	 * decode the base 64 encoded String data writing it to the given output stream,
-	 * whitespace characters will be ignored.
+	 * strict decoding of base 64 String data without whitespace into the given byte array, which must have room for
+	 * {@link #getDecodedLength(String)} bytes from outOff.
 	 *
+	 * @param data data
+	 * @param out output array
+	 * @param outOff output offset
 	 * @return the number of bytes produced.
+	 * @throws IOException if the data contains whitespace or invalid characters
 	 */
-	public int decode(String data, OutputStream out) throws IOException {
-		byte b1, b2, b3, b4;
-		int length = 0;
-		int end = data.length();
+	public int decode(String data, byte[] out, int outOff) throws IOException {
+		return decode(data, 0, data.length(), out, outOff);
+	}
+
+	/**
+	 * strict decoding of a range of base 64 String data without whitespace into the given byte array
+	 *
+	 * @param data data
+	 * @param off off
+	 * @param length length
+	 * @param out output array
+	 * @param outOff output offset
+	 * @return the number of bytes produced.
+	 * @throws IOException if the data contains whitespace or invalid characters
+	 */
+	public int decode(String data, int off, int length, byte[] out, int outOff) throws IOException {
+		int modulus = length % 4;
+		if (modulus == 1) {
+			throw new IOException("invalid base64 data length");
+		}
+		if (length == 0) {
+			return 0;
+		}
+		int last = off + length - (modulus == 0 ? 4 : modulus);
+		int o = decodeBlocks(data, off, last, out, outOff);
+		if (modulus == 0) {
+			o += decodeLastBlock(out, o, data.charAt(last), data.charAt(last + 1), data.charAt(last + 2), data.charAt(last + 3));
+		}
+		else {
+			o += decodeUnpaddedBlock(out, o, data.charAt(last), data.charAt(last + 1),
+					modulus == 3 ? data.charAt(last + 2) : 0, modulus);
+		}
+		return o - outOff;
+	}
 
-		while (end > 0) {
-			if (!ignore(data.charAt(end - 1))) {
-				break;
+	/**
+	 * decodes the whole 4 character blocks in [off, end), padding is not allowed here
+	 *
+	 * @return the output index after the decoded bytes
+	 */
+	private int decodeBlocks(byte[] data, int off, int end, byte[] out, int o) throws IOException {
+		final byte[] table = decodingTable;
+		for (int i = off; i < end; i += 4) {
+			int b1 = table[data[i] & 0xff];
+			int b2 = table[data[i + 1] & 0xff];
+			int b3 = table[data[i + 2] & 0xff];
+			int b4 = table[data[i + 3] & 0xff];
+			if ((b1 | b2 | b3 | b4) < 0) {
+				throw new IOException("invalid characters encountered in base64 data");
 			}
+			out[o] = (byte) ((b1 << 2) | (b2 >> 4));
+			out[o + 1] = (byte) ((b2 << 4) | (b3 >> 2));
+			out[o + 2] = (byte) ((b3 << 6) | b4);
+			o += 3;
+		}
+		return o;
+	}
 
-			end--;
+	private int decodeBlocks(String data, int off, int end, byte[] out, int o) throws IOException {
+		final byte[] table = decodingTable;
+		int chars = 0;
+		for (int i = off; i < end; i += 4) {
+			int c1 = data.charAt(i), c2 = data.charAt(i + 1), c3 = data.charAt(i + 2), c4 = data.charAt(i + 3);
+			chars |= c1 | c2 | c3 | c4;
+			int b1 = table[c1 & 0xff], b2 = table[c2 & 0xff], b3 = table[c3 & 0xff], b4 = table[c4 & 0xff];
+			if ((b1 | b2 | b3 | b4) < 0) {
+				throw new IOException("invalid characters encountered in base64 data");
+			}
+			out[o] = (byte) ((b1 << 2) | (b2 >> 4));
+			out[o + 1] = (byte) ((b2 << 4) | (b3 >> 2));
+			out[o + 2] = (byte) ((b3 << 6) | b4);
+			o += 3;
+		}
+		// characters beyond 0xff alias table entries, so they are rejected once for the whole range
+		if (chars > 0xff) {
+			throw new IOException("invalid characters encountered in base64 data");
 		}
+		return o;
+	}
 
-		// empty data!
-		if (end == 0) {
-			return 0;
+	/**
+	 * encode the input data on the given pool, the input is split into chunks of whole lines
+	 * (whole 3 byte groups without line wrapping) each encoded into its precomputed slot of out.
+	 *
+	 * @param data data
+	 * @param off off
+	 * @param length length
+	 * @param out output array, must have room for {@link #getEncodedLength(int)} bytes from outOff
+	 * @param outOff output offset
+	 * @param pool the pool running the chunks
+	 * @return the number of bytes produced.
+	 */
+	public int encode(byte[] data, int off, int length, byte[] out, int outOff, ForkJoinPool pool) {
+		int group = lineLength > 0 ? lineLength / 4 * 3 : 3;
+		int chunkSize = Math.max(1, PARALLEL_CHUNK_SIZE / group) * group;
+		int chunks = (length + chunkSize - 1) / chunkSize;
+		int encodedChunkSize = getEncodedLength(chunkSize) + (lineLength > 0 ? lineSeparator.length : 0);
+		try {
+			pool.invoke(new ChunkAction(0, chunks, chunk -> {
+				int start = chunk * chunkSize;
+				int o = outOff + chunk * encodedChunkSize;
+				if (chunk > 0 && lineLength > 0) {
+					// a chunk of whole lines starts with the separator of the previous line
+					System.arraycopy(lineSeparator, 0, out, o - lineSeparator.length, lineSeparator.length);
+				}
+				encode(data, off + start, Math.min(chunkSize, length - start), out, o);
+			}));
+		}
+		catch (UncheckedIOException e) {
+			throw new EncoderException("unable to encode base64 data: " + e.getMessage(), e.getCause());
 		}
+		return getEncodedLength(length);
+	}
 
-		int i = 0;
-		int finish = end;
+	/**
+	 * strict decoding of base 64 data without whitespace on the given pool, the input is split into
+	 * chunks of whole 4 character blocks each decoded into its precomputed slot of out.
+	 * Padding is only accepted at the end of the data, as in the serial decoder.
+	 *
+	 * @param data data
+	 * @param off off
+	 * @param length length
+	 * @param out output array, must have room for {@link #getDecodedLength(byte[], int, int)} bytes from outOff
+	 * @param outOff output offset
+	 * @param pool the pool running the chunks
+	 * @return the number of bytes produced.
+	 * @throws IOException if the data contains whitespace or invalid characters
+	 */
+	public int decode(byte[] data, int off, int length, byte[] out, int outOff, ForkJoinPool pool) throws IOException {
+		int decodedLength = getDecodedLength(data, off, length);
+		if (decodedLength < 0) {
+			throw new IOException("invalid base64 data length");
+		}
+		invokeDecode(length, pool, (start, count, last) -> {
+			if (last) {
+				decode(data, off + start, count, out, outOff + start / 4 * 3);
+			}
+			else {
+				decodeBlocks(data, off + start, off + start + count, out, outOff + start / 4 * 3);
+			}
+		});
+		return decodedLength;
+	}
 
-		while (finish > 0 && i != 4) {
-			if (!ignore(data.charAt(finish - 1))) {
-				i++;
+	/**
+	 * strict decoding of base 64 String data without whitespace on the given pool
+	 *
+	 * @param data data
+	 * @param out output array, must have room for {@link #getDecodedLength(String)} bytes from outOff
+	 * @param outOff output offset
+	 * @param pool the pool running the chunks
+	 * @return the number of bytes produced.
+	 * @throws IOException if the data contains whitespace or invalid characters
+	 * @see #decode(byte[], int, int, byte[], int, ForkJoinPool)
+	 */
+	public int decode(String data, byte[] out, int outOff, ForkJoinPool pool) throws IOException {
+		int decodedLength = getDecodedLength(data);
+		if (decodedLength < 0) {
+			throw new IOException("invalid base64 data length");
+		}
+		invokeDecode(data.length(), pool, (start, count, last) -> {
+			if (last) {
+				decode(data, start, count, out, outOff + start / 4 * 3);
 			}
+			else {
+				decodeBlocks(data, start, start + count, out, outOff + start / 4 * 3);
+			}
+		});
+		return decodedLength;
+	}
 
-			finish--;
+	private static void invokeDecode(int length, ForkJoinPool pool, RangeDecoder decoder) throws IOException {
+		int chunkSize = PARALLEL_CHUNK_SIZE / 3 * 4;
+		int chunks = (length + chunkSize - 1) / chunkSize;
+		try {
+			pool.invoke(new ChunkAction(0, chunks, chunk -> {
+				int start = chunk * chunkSize;
+				// only the final chunk may end with padding
+				decoder.decode(start, Math.min(chunkSize, length - start), chunk == chunks - 1);
+			}));
 		}
+		catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+	}
 
-		i = nextI(data, 0, finish);
-		while (i < finish) {
-			b1 = decodingTable[data.charAt(i++)];
-			i = nextI(data, i, finish);
-			b2 = decodingTable[data.charAt(i++)];
-			i = nextI(data, i, finish);
-			b3 = decodingTable[data.charAt(i++)];
-			i = nextI(data, i, finish);
-			b4 = decodingTable[data.charAt(i++)];
+	@FunctionalInterface
+	private interface RangeDecoder {
 
-			if ((b1 | b2 | b3 | b4) < 0) {
-				throw new IOException("invalid characters encountered in base64 data");
+		void decode(int start, int count, boolean last) throws IOException;
+	}
+
+	@FunctionalInterface
+	private interface ChunkCodec {
+
+		void run(int chunk) throws IOException;
+	}
+
+	/**
+	 * runs the chunks [from, to) splitting the range in halves
+	 */
+	private static class ChunkAction extends RecursiveAction {
+
+		private static final long serialVersionUID = 2874361302567151206L;
+
+		private final int from;
+
+		private final int to;
+
+		private final ChunkCodec codec;
+
+		ChunkAction(int from, int to, ChunkCodec codec) {
+			this.from = from;
+			this.to = to;
+			this.codec = codec;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from > 1) {
+				int middle = (from + to) >>> 1;
+				invokeAll(new ChunkAction(from, middle, codec), new ChunkAction(middle, to, codec));
+				return;
 			}
-			out.write((b1 << 2) | (b2 >> 4));
-			out.write((b2 << 4) | (b3 >> 2));
-			out.write((b3 << 6) | b4);
-			length += 3;
-			i = nextI(data, i, finish);
-		}
-		int e0 = nextI(data, i, end);
-		int e1 = nextI(data, e0 + 1, end);
-		int e2 = nextI(data, e1 + 1, end);
-		int e3 = nextI(data, e2 + 1, end);
-		length += decodeLastBlock(out, data.charAt(e0), data.charAt(e1), data.charAt(e2), data.charAt(e3));
-		return length;
-	}
-
-	private int decodeLastBlock(OutputStream out, char c1, char c2, char c3, char c4) throws IOException {
-		byte b1, b2, b3, b4;
-		if (c3 == padding) {
-			if (c4 != padding) {
-				throw new IOException("invalid characters encountered at end of base64 data");
+			if (to > from) {
+				try {
+					codec.run(from);
+				}
+				catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
 			}
-			b1 = decodingTable[c1];
-			b2 = decodingTable[c2];
-			if ((b1 | b2) < 0) {
+		}
+	}
+
+	/**
+	 * decodes the 2 or 3 characters left at the end of unpadded data, these are all data characters,
+	 * padding among them would be dropped and leave the precomputed decoded length short
+	 */
+	int decodeUnpaddedBlock(byte[] out, int o, int c1, int c2, int c3, int count) throws IOException {
+		if (c1 == padding || c2 == padding || (count == 3 && c3 == padding)) {
+			throw new IOException("invalid padding encountered at end of base64 data");
+		}
+		return decodeLastBlock(out, o, c1, c2, count == 3 ? c3 : padding, padding);
+	}
+
+	int decodeLastBlock(byte[] out, int o, int c1, int c2, int c3, int c4) throws IOException {
+		if (((c1 | c2 | c3 | c4) & ~0x7f) != 0) {
+			throw new IOException("invalid characters encountered at end of base64 data");
+		}
+		int b1 = decodingTable[c1];
+		int b2 = decodingTable[c2];
+		if (c3 == padding) {
+			if (c4 != padding || (b1 | b2) < 0) {
 				throw new IOException("invalid characters encountered at end of base64 data");
 			}
-			out.write((b1 << 2) | (b2 >> 4));
+			out[o] = (byte) ((b1 << 2) | (b2 >> 4));
 			return 1;
 		}
-		else if (c4 == padding) {
-			b1 = decodingTable[c1];
-			b2 = decodingTable[c2];
-			b3 = decodingTable[c3];
+		int b3 = decodingTable[c3];
+		if (c4 == padding) {
 			if ((b1 | b2 | b3) < 0) {
 				throw new IOException("invalid characters encountered at end of base64 data");
 			}
-			out.write((b1 << 2) | (b2 >> 4));
-			out.write((b2 << 4) | (b3 >> 2));
+			out[o] = (byte) ((b1 << 2) | (b2 >> 4));
+			out[o + 1] = (byte) ((b2 << 4) | (b3 >> 2));
 			return 2;
 		}
-		else {
-			b1 = decodingTable[c1];
-			b2 = decodingTable[c2];
-			b3 = decodingTable[c3];
-			b4 = decodingTable[c4];
-			if ((b1 | b2 | b3 | b4) < 0) {
-				throw new IOException("invalid characters encountered at end of base64 data");
+		int b4 = decodingTable[c4];
+		if ((b1 | b2 | b3 | b4) < 0) {
+			throw new IOException("invalid characters encountered at end of base64 data");
+		}
+		out[o] = (byte) ((b1 << 2) | (b2 >> 4));
+		out[o + 1] = (byte) ((b2 << 4) | (b3 >> 2));
+		out[o + 2] = (byte) ((b3 << 6) | b4);
+		return 3;
+	}
+
+	/**
+	 * decode the remaining base 64 bytes of src into dst, whitespace characters will be ignored.
+	 * Heap buffers without whitespace take the strict array path.
+	 */
+	@Override
+	public int decode(ByteBuffer src, ByteBuffer dst) throws IOException {
+		int length = src.remaining();
+		if (src.hasArray() && dst.hasArray()) {
+			byte[] data = src.array();
+			int off = src.arrayOffset() + src.position();
+			int decodedLength = getDecodedLength(data, off, length);
+			if (decodedLength >= 0 && decodedLength <= dst.remaining()) {
+				try {
+					decode(data, off, length, dst.array(), dst.arrayOffset() + dst.position());
+					src.position(src.limit());
+					dst.position(dst.position() + decodedLength);
+					return decodedLength;
+				}
+				catch (IOException ignore) {
+					// whitespace or invalid characters, decode again skipping whitespace
+				}
+			}
+		}
+		byte[] block = new byte[3];
+		int o = dst.position();
+		int c1 = 0, c2 = 0, c3 = 0;
+		int count = 0;
+		boolean finished = false;
+		for (int i = src.position(); i < src.limit(); i++) {
+			int c = src.get(i);
+			if (ignore(c)) {
+				continue;
+			}
+			if (finished) {
+				throw new IOException("invalid characters encountered after base64 padding");
 			}
-			out.write((b1 << 2) | (b2 >> 4));
-			out.write((b2 << 4) | (b3 >> 2));
-			out.write((b3 << 6) | b4);
-			return 3;
+			switch (count++) {
+				case 0:
+					c1 = c;
+					break;
+				case 1:
+					c2 = c;
+					break;
+				case 2:
+					c3 = c;
+					break;
+				default:
+					count = 0;
+					int decoded = decodeLastBlock(block, 0, c1, c2, c3, c);
+					o = putBlock(dst, o, block, decoded);
+					// padding ends the base 64 data
+					finished = decoded < 3;
+			}
+		}
+		if (count == 1) {
+			throw new IOException("unexpected end of base64 data");
 		}
+		if (count > 1) {
+			// unpadded data, the missing characters are padding
+			o = putBlock(dst, o, block, decodeUnpaddedBlock(block, 0, c1, c2, c3, count));
+		}
+		int decodedLength = o - dst.position();
+		src.position(src.limit());
+		dst.position(o);
+		return decodedLength;
 	}
 
-	private int nextI(String data, int i, int finish) {
-		while ((i < finish) && ignore(data.charAt(i))) {
+	private static int putBlock(ByteBuffer dst, int o, byte[] block, int length) {
+		if (dst.limit() - o < length) {
+			throw new BufferOverflowException();
+		}
+		for (int i = 0; i < length; i++) {
+			dst.put(o + i, block[i]);
+		}
+		return o + length;
+	}
+
+	private static boolean ignore(int c) {
+		return (c == '\n' || c == '\r' || c == '\t' || c == ' ');
+	}
+
+	/**
+	 * decode the base 64 encoded byte data writing it to the given output stream,
+	 * whitespace characters will be ignored.
+	 *
+	 * @return the number of bytes produced.
+	 */
+	public int decode(byte[] data, int off, int length, OutputStream out) throws IOException {
+		int end = off + length;
+		int i = off;
+		while (i < end && !ignore(data[i])) {
 			i++;
 		}
-		return i;
+		byte[] compact = data;
+		int compactOff = off;
+		int compactLength = length;
+		if (i < end) {
+			// strip the whitespace once, then decode strictly
+			compact = new byte[length];
+			compactOff = 0;
+			compactLength = i - off;
+			System.arraycopy(data, off, compact, 0, compactLength);
+			for (; i < end; i++) {
+				if (!ignore(data[i])) {
+					compact[compactLength++] = data[i];
+				}
+			}
+		}
+		int decodedLength = getDecodedLength(compact, compactOff, compactLength);
+		if (decodedLength < 0) {
+			throw new IOException("invalid base64 data length");
+		}
+		byte[] decoded = new byte[decodedLength];
+		decode(compact, compactOff, compactLength, decoded, 0);
+		out.write(decoded);
+		return decodedLength;
+	}
+
+	/**
+	 * decode the base 64 encoded String data writing it to the given output stream,
+	 * whitespace characters will be ignored.
+	 *
+	 * @return the number of bytes produced.
+	 */
+	public int decode(String data, OutputStream out) throws IOException {
+		byte[] compact = new byte[data.length()];
+		int compactLength = 0;
+		for (int i = 0; i < data.length(); i++) {
+			char c = data.charAt(i);
+			if (c > 0x7f) {
+				throw new IOException("invalid characters encountered in base64 string");
+			}
+			if (!ignore(c)) {
+				compact[compactLength++] = (byte) c;
+			}
+		}
+		return decode(compact, 0, compactLength, out);
 	}
 }
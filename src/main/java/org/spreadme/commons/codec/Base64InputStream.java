@@ -0,0 +1,160 @@
+/*
+ *    Copyright [2019] [shuwei.wang (c) wswill@foxmail.com]
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package org.spreadme.commons.codec;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * base64 decoding input stream
+ * <p>reads base 64 encoded data from the underlying stream and returns the decoded bytes,
+ * whitespace (line breaks included) is ignored. The memory used is constant whatever the size of the payload.</p>
+ * @author shuwei.wang
+ * @since 1.0.0
+ */
+public class Base64InputStream extends FilterInputStream {
+
+	private static final int CHUNK_SIZE = 4 * 1024;
+
+	private final Base64Encoder encoder;
+
+	private final byte[] raw = new byte[CHUNK_SIZE];
+
+	private final byte[] decoded = new byte[(CHUNK_SIZE / 4 + 1) * 3];
+
+	private final byte[] quad = new byte[4];
+
+	private int quadLength = 0;
+
+	private int pos = 0;
+
+	private int limit = 0;
+
+	private boolean eof = false;
+
+	public Base64InputStream(InputStream in) {
+		this(in, new Base64Encoder());
+	}
+
+	public Base64InputStream(InputStream in, Base64Encoder encoder) {
+		super(in);
+		this.encoder = encoder;
+	}
+
+	@Override
+	public int read() throws IOException {
+		if (pos == limit && !fill()) {
+			return -1;
+		}
+		return decoded[pos++] & 0xff;
+	}
+
+	@Override
+	public int read(byte[] b, int off, int len) throws IOException {
+		if (off < 0 || len < 0 || len > b.length - off) {
+			throw new IndexOutOfBoundsException();
+		}
+		if (len == 0) {
+			return 0;
+		}
+		if (pos == limit && !fill()) {
+			return -1;
+		}
+		int count = Math.min(len, limit - pos);
+		System.arraycopy(decoded, pos, b, off, count);
+		pos += count;
+		return count;
+	}
+
+	@Override
+	public long skip(long n) throws IOException {
+		long skipped = 0;
+		while (skipped < n && (pos < limit || fill())) {
+			int count = (int) Math.min(n - skipped, limit - pos);
+			pos += count;
+			skipped += count;
+		}
+		return skipped;
+	}
+
+	@Override
+	public int available() {
+		return limit - pos;
+	}
+
+	@Override
+	public boolean markSupported() {
+		return false;
+	}
+
+	@Override
+	public synchronized void mark(int readlimit) {
+	}
+
+	@Override
+	public synchronized void reset() throws IOException {
+		throw new IOException("mark/reset not supported");
+	}
+
+	/**
+	 * decodes the next chunk of the underlying stream
+	 *
+	 * @return false at the end of the base 64 data
+	 */
+	private boolean fill() throws IOException {
+		pos = 0;
+		limit = 0;
+		while (limit == 0) {
+			if (eof) {
+				return false;
+			}
+			int n = in.read(raw, 0, raw.length);
+			if (n < 0) {
+				eof = true;
+				if (quadLength == 0) {
+					return false;
+				}
+				if (quadLength == 1) {
+					throw new IOException("unexpected end of base64 data");
+				}
+				// unpadded data, the missing characters are padding
+				limit = encoder.decodeUnpaddedBlock(decoded, 0, quad[0], quad[1], quad[2], quadLength);
+				quadLength = 0;
+				return true;
+			}
+			for (int i = 0; i < n; i++) {
+				byte c = raw[i];
+				if (c == '\n' || c == '\r' || c == '\t' || c == ' ') {
+					continue;
+				}
+				quad[quadLength++] = c;
+				if (quadLength == 4) {
+					quadLength = 0;
+					int count = encoder.decodeLastBlock(decoded, limit, quad[0], quad[1], quad[2], quad[3]);
+					limit += count;
+					if (count < 3) {
+						// padding ends the base 64 data
+						eof = true;
+						break;
+					}
+				}
+			}
+		}
+		return true;
+	}
+}
@@ -0,0 +1,186 @@
+/*
+ *    Copyright [2019] [shuwei.wang (c) wswill@foxmail.com]
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package org.spreadme.commons.codec;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * base64 encoding output stream
+ * <p>bytes written to this stream are base 64 encoded to the underlying stream, a partial 3-byte
+ * group is carried over to the next write and padded on {@link #close()}. The memory used is
+ * constant whatever the size of the payload.</p>
+ * @author shuwei.wang
+ * @since 1.0.0
+ */
+public class Base64OutputStream extends FilterOutputStream {
+
+	// input bytes encoded per chunk, a multiple of 3
+	private static final int CHUNK_SIZE = 3 * 1024;
+
+	private static final byte[] CRLF = {'\r', '\n'};
+
+	private final Base64Encoder encoder;
+
+	private final int lineLength;
+
+	private final byte[] lineSeparator;
+
+	private final byte[] pending = new byte[3];
+
+	private final byte[] encoded;
+
+	private int pendingLength = 0;
+
+	private int column = 0;
+
+	private boolean closed = false;
+
+	/**
+	 * Create a base 64 output stream without line wrapping
+	 *
+	 * @param out the underlying output stream
+	 */
+	public Base64OutputStream(OutputStream out) {
+		this(out, 0, CRLF);
+	}
+
+	/**
+	 * Create a base 64 output stream with the alphabet, padding and line wrapping of the given encoder
+	 *
+	 * @param out the underlying output stream
+	 * @param encoder the base 64 encoder, for example {@link UrlBase64Encoder} or {@link MimeBase64Encoder}
+	 */
+	public Base64OutputStream(OutputStream out, Base64Encoder encoder) {
+		this(out, encoder, encoder.getLineLength(), encoder.getLineSeparator());
+	}
+
+	/**
+	 * Create a base 64 output stream
+	 *
+	 * @param out the underlying output stream
+	 * @param lineLength the maximum encoded line length, 0 for no line wrapping
+	 * @param lineSeparator the line separator
+	 */
+	public Base64OutputStream(OutputStream out, int lineLength, byte[] lineSeparator) {
+		this(out, new Base64Encoder(), lineLength, lineSeparator);
+	}
+
+	/**
+	 * Create a base 64 output stream
+	 *
+	 * @param out the underlying output stream
+	 * @param encoder the base 64 encoder
+	 * @param lineLength the maximum encoded line length, 0 for no line wrapping
+	 * @param lineSeparator the line separator
+	 */
+	public Base64OutputStream(OutputStream out, Base64Encoder encoder, int lineLength, byte[] lineSeparator) {
+		super(out);
+		if (lineLength < 0) {
+			throw new IllegalArgumentException("line length must not be less than 0");
+		}
+		this.encoder = encoder;
+		this.lineLength = lineLength;
+		this.lineSeparator = lineSeparator.clone();
+		this.encoded = new byte[encoder.getBlocksLength(CHUNK_SIZE)];
+	}
+
+	@Override
+	public void write(int b) throws IOException {
+		ensureOpen();
+		pending[pendingLength++] = (byte) b;
+		if (pendingLength == pending.length) {
+			writeEncoded(encoder.encodeBlocks(pending, 0, pendingLength, encoded, 0));
+			pendingLength = 0;
+		}
+	}
+
+	@Override
+	public void write(byte[] b, int off, int len) throws IOException {
+		if (off < 0 || len < 0 || len > b.length - off) {
+			throw new IndexOutOfBoundsException();
+		}
+		ensureOpen();
+		// complete the carried over group first
+		while (pendingLength > 0 && len > 0) {
+			write(b[off++]);
+			len--;
+		}
+		int whole = len - len % 3;
+		int end = off + whole;
+		for (int i = off; i < end; i += CHUNK_SIZE) {
+			writeEncoded(encoder.encodeBlocks(b, i, Math.min(CHUNK_SIZE, end - i), encoded, 0));
+		}
+		for (int i = end; i < off + len; i++) {
+			pending[pendingLength++] = b[i];
+		}
+	}
+
+	/**
+	 * Flushes the underlying stream, a partial group stays buffered until {@link #close()}.
+	 */
+	@Override
+	public void flush() throws IOException {
+		out.flush();
+	}
+
+	/**
+	 * Encodes the remaining partial group with padding and closes the underlying stream.
+	 */
+	@Override
+	public void close() throws IOException {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		try {
+			if (pendingLength > 0) {
+				writeEncoded(encoder.encodeBlocks(pending, 0, pendingLength, encoded, 0));
+				pendingLength = 0;
+			}
+			out.flush();
+		}
+		finally {
+			out.close();
+		}
+	}
+
+	private void writeEncoded(int length) throws IOException {
+		if (lineLength == 0) {
+			out.write(encoded, 0, length);
+			return;
+		}
+		int pos = 0;
+		while (pos < length) {
+			if (column == lineLength) {
+				out.write(lineSeparator);
+				column = 0;
+			}
+			int count = Math.min(length - pos, lineLength - column);
+			out.write(encoded, pos, count);
+			pos += count;
+			column += count;
+		}
+	}
+
+	private void ensureOpen() throws IOException {
+		if (closed) {
+			throw new IOException("Stream closed");
+		}
+	}
+}
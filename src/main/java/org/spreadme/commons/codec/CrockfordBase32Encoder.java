@@ -0,0 +1,52 @@
+/*
+ *    Copyright [2019] [shuwei.wang (c) wswill@foxmail.com]
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package org.spreadme.commons.codec;
+
+/**
+ * crockford base32 encoder
+ * <p>Douglas Crockford's base 32: digits and upper case letters without I, L, O and U, no padding.
+ * Decoding is case insensitive, reads I and L as 1 and O as 0, and ignores hyphens.
+ * The alphabet is ordered, so fixed width encoded longs sort like the values.</p>
+ * @author shuwei.wang
+ * @since 1.0.0
+ */
+public class CrockfordBase32Encoder extends Base32Encoder {
+
+	private static final byte[] CROCKFORD_ENCODING_TABLE = {
+			(byte) '0', (byte) '1', (byte) '2', (byte) '3', (byte) '4', (byte) '5', (byte) '6', (byte) '7',
+			(byte) '8', (byte) '9', (byte) 'A', (byte) 'B', (byte) 'C', (byte) 'D', (byte) 'E', (byte) 'F',
+			(byte) 'G', (byte) 'H', (byte) 'J', (byte) 'K', (byte) 'M', (byte) 'N', (byte) 'P', (byte) 'Q',
+			(byte) 'R', (byte) 'S', (byte) 'T', (byte) 'V', (byte) 'W', (byte) 'X', (byte) 'Y', (byte) 'Z'
+	};
+
+	public CrockfordBase32Encoder() {
+		super(CROCKFORD_ENCODING_TABLE, false);
+	}
+
+	@Override
+	protected void initDecodingTable() {
+		super.initDecodingTable();
+		decodingTable['I'] = decodingTable['i'] = 1;
+		decodingTable['L'] = decodingTable['l'] = 1;
+		decodingTable['O'] = decodingTable['o'] = 0;
+	}
+
+	@Override
+	protected boolean ignore(int c) {
+		return c == '-' || super.ignore(c);
+	}
+}
@@ -18,6 +18,10 @@ package org.spreadme.commons.codec;
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+
+import org.spreadme.commons.io.FastByteArrayOutputStream;
 
 /**
  * Encode and decode byte arrays
@@ -31,4 +35,58 @@ public interface Encoder {
 	int decode(byte[] data, int off, int length, OutputStream out) throws IOException;
 
 	int decode(String data, OutputStream out) throws IOException;
+
+	/**
+	 * encode the remaining bytes of src into dst.
+	 * The default implementation copies through the byte[] path, the built-in encoders
+	 * access heap and direct buffers in place.
+	 * On return src is consumed and the position of dst is advanced past the encoded bytes.
+	 *
+	 * @param src data
+	 * @param dst result, must have room for the whole encoding
+	 * @return the number of bytes produced.
+	 * @throws java.nio.BufferOverflowException if dst has not enough room, no position is changed
+	 */
+	default int encode(ByteBuffer src, ByteBuffer dst) {
+		byte[] data = new byte[src.remaining()];
+		src.duplicate().get(data);
+		FastByteArrayOutputStream out = new FastByteArrayOutputStream();
+		try {
+			encode(data, 0, data.length, out);
+		}
+		catch (IOException ex) {
+			throw new IllegalStateException(ex.getMessage(), ex);
+		}
+		if (dst.remaining() < out.size()) {
+			throw new BufferOverflowException();
+		}
+		dst.put(out.toByteArrayUnsafe(), 0, out.size());
+		src.position(src.limit());
+		return out.size();
+	}
+
+	/**
+	 * decode the remaining bytes of src into dst.
+	 * The default implementation copies through the byte[] path, the built-in encoders
+	 * access heap and direct buffers in place.
+	 * On return src is consumed and the position of dst is advanced past the decoded bytes.
+	 *
+	 * @param src encoded data
+	 * @param dst result, must have room for the whole decoding
+	 * @return the number of bytes produced.
+	 * @throws IOException if src is not valid encoded data, no position is changed
+	 * @throws java.nio.BufferOverflowException if dst has not enough room, no position is changed
+	 */
+	default int decode(ByteBuffer src, ByteBuffer dst) throws IOException {
+		byte[] data = new byte[src.remaining()];
+		src.duplicate().get(data);
+		FastByteArrayOutputStream out = new FastByteArrayOutputStream();
+		decode(data, 0, data.length, out);
+		if (dst.remaining() < out.size()) {
+			throw new BufferOverflowException();
+		}
+		dst.put(out.toByteArrayUnsafe(), 0, out.size());
+		src.position(src.limit());
+		return out.size();
+	}
 }
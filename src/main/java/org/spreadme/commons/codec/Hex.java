@@ -20,8 +20,6 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 
-import org.spreadme.commons.util.StringUtil;
-
 /**
  * hex
  * @author shuwei.wang
@@ -29,7 +27,7 @@ import org.spreadme.commons.util.StringUtil;
  */
 public abstract class Hex {
 
-	private static final Encoder encoder = new HexEncoder();
+	private static final HexEncoder encoder = new HexEncoder();
 
 	/**
 	 * hex to string
@@ -50,8 +48,9 @@ public abstract class Hex {
 	 * @return hex string
 	 */
 	public static String toHexString(byte[] data, int off, int length) {
-		byte[] encoded = encode(data, off, length);
-		return StringUtil.fromByteArray(encoded);
+		char[] encoded = new char[length * 2];
+		encoder.encode(data, off, length, encoded, 0);
+		return new String(encoded);
 	}
 
 	/**
@@ -73,14 +72,9 @@ public abstract class Hex {
 	 * @return a byte array containing the Hex encoded data.
 	 */
 	public static byte[] encode(byte[] data, int off, int length) {
-		ByteArrayOutputStream out = new ByteArrayOutputStream();
-		try {
-			encoder.encode(data, off, length, out);
-		}
-		catch (IOException e) {
-			throw new EncoderException("exception encoding Hex string: " + e.getMessage(), e);
-		}
-		return out.toByteArray();
+		byte[] encoded = new byte[length * 2];
+		encoder.encode(data, off, length, encoded, 0);
+		return encoded;
 	}
 
 	/**
@@ -116,6 +110,16 @@ public abstract class Hex {
 	 * @return a byte array representing the decoded data.
 	 */
 	public static byte[] decode(byte[] data) {
+		if ((data.length & 1) == 0) {
+			byte[] decoded = new byte[data.length / 2];
+			try {
+				encoder.decode(data, 0, data.length, decoded, 0);
+				return decoded;
+			}
+			catch (IOException ignore) {
+				// whitespace or invalid characters, let the lenient decoder sort it out
+			}
+		}
 		ByteArrayOutputStream out = new ByteArrayOutputStream();
 		try {
 			encoder.decode(data, 0, data.length, out);
@@ -133,6 +137,16 @@ public abstract class Hex {
 	 * @return a byte array representing the decoded data.
 	 */
 	public static byte[] decode(String data) {
+		if ((data.length() & 1) == 0) {
+			byte[] decoded = new byte[data.length() / 2];
+			try {
+				encoder.decode(data, decoded, 0);
+				return decoded;
+			}
+			catch (IOException ignore) {
+				// whitespace or invalid characters, let the lenient decoder sort it out
+			}
+		}
 		ByteArrayOutputStream bOut = new ByteArrayOutputStream();
 		try {
 			encoder.decode(data, bOut);
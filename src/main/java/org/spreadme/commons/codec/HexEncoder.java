@@ -18,9 +18,13 @@ package org.spreadme.commons.codec;
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
 
 /**
  * hex encoder
+ * <p>every byte is encoded by one lookup in a 256 entry table of character pairs, decoding
+ * validates the characters of a whole block with a single check.</p>
  * @author shuwei.wang
  * @since 1.0.0
  */
@@ -31,7 +35,13 @@ public class HexEncoder implements Encoder {
 			(byte) '8', (byte) '9', (byte) 'a', (byte) 'b', (byte) 'c', (byte) 'd', (byte) 'e', (byte) 'f'
 	};
 
-	protected final byte[] decodingTable = new byte[128];
+	// input bytes encoded per write when encoding to an OutputStream
+	private static final int CHUNK_SIZE = 2 * 1024;
+
+	// the two characters of every byte value, high nibble first
+	protected final char[] pairTable = new char[512];
+
+	protected final byte[] decodingTable = new byte[256];
 
 	protected void initDecodingTable() {
 		for (int i = 0; i < decodingTable.length; i++) {
@@ -49,20 +59,162 @@ public class HexEncoder implements Encoder {
 		decodingTable['F'] = decodingTable['f'];
 	}
 
+	protected void initPairTable() {
+		for (int i = 0; i < 256; i++) {
+			pairTable[i << 1] = (char) encodingTable[i >>> 4];
+			pairTable[(i << 1) + 1] = (char) encodingTable[i & 0xf];
+		}
+	}
+
 	public HexEncoder() {
 		initDecodingTable();
+		initPairTable();
 	}
 
 	@Override
 	public int encode(byte[] data, int off, int length, OutputStream out) throws IOException {
-		for (int i = off; i < (off + length); i++) {
-			int v = data[i] & 0xff;
-			out.write(encodingTable[(v >>> 4)]);
-			out.write(encodingTable[v & 0xf]);
+		byte[] buffer = new byte[Math.min(length, CHUNK_SIZE) * 2];
+		int end = off + length;
+		for (int i = off; i < end; i += CHUNK_SIZE) {
+			int encoded = encode(data, i, Math.min(CHUNK_SIZE, end - i), buffer, 0);
+			out.write(buffer, 0, encoded);
 		}
 		return length * 2;
 	}
 
+	/**
+	 * encode the input data into the given byte array, which must have room for length * 2 bytes from outOff.
+	 *
+	 * @param data data
+	 * @param off off
+	 * @param length length
+	 * @param out output array
+	 * @param outOff output offset
+	 * @return the number of bytes produced.
+	 */
+	public int encode(byte[] data, int off, int length, byte[] out, int outOff) {
+		final char[] table = pairTable;
+		int o = outOff;
+		for (int i = off, end = off + length; i < end; i++) {
+			int p = (data[i] & 0xff) << 1;
+			out[o] = (byte) table[p];
+			out[o + 1] = (byte) table[p + 1];
+			o += 2;
+		}
+		return length * 2;
+	}
+
+	/**
+	 * encode the input data into the given char array, which must have room for length * 2 chars from outOff.
+	 *
+	 * @param data data
+	 * @param off off
+	 * @param length length
+	 * @param out output array
+	 * @param outOff output offset
+	 * @return the number of chars produced.
+	 */
+	public int encode(byte[] data, int off, int length, char[] out, int outOff) {
+		final char[] table = pairTable;
+		int o = outOff;
+		for (int i = off, end = off + length; i < end; i++) {
+			int p = (data[i] & 0xff) << 1;
+			out[o] = table[p];
+			out[o + 1] = table[p + 1];
+			o += 2;
+		}
+		return length * 2;
+	}
+
+	/**
+	 * strict decoding of Hex data without whitespace into the given byte array, which must have room for
+	 * length / 2 bytes from outOff. The table values of the whole data are OR-accumulated and checked once.
+	 *
+	 * @param data data
+	 * @param off off
+	 * @param length length
+	 * @param out output array
+	 * @param outOff output offset
+	 * @return the number of bytes produced.
+	 * @throws IOException if the data contains whitespace or invalid characters
+	 */
+	public int decode(byte[] data, int off, int length, byte[] out, int outOff) throws IOException {
+		if ((length & 1) != 0) {
+			throw new IOException("odd number of characters in Hex data");
+		}
+		final byte[] table = decodingTable;
+		int invalid = 0;
+		int o = outOff;
+		for (int i = off, end = off + length; i < end; i += 2) {
+			int b1 = table[data[i] & 0xff];
+			int b2 = table[data[i + 1] & 0xff];
+			invalid |= b1 | b2;
+			out[o++] = (byte) ((b1 << 4) | b2);
+		}
+		if (invalid < 0) {
+			throw new IOException("invalid characters encountered in Hex data");
+		}
+		return length >> 1;
+	}
+
+	/**
+	 * strict decoding of Hex String data without whitespace into the given byte array, which must have room for
+	 * length / 2 bytes from outOff.
+	 *
+	 * @param data data
+	 * @param out output array
+	 * @param outOff output offset
+	 * @return the number of bytes produced.
+	 * @throws IOException if the data contains whitespace or invalid characters
+	 */
+	public int decode(String data, byte[] out, int outOff) throws IOException {
+		int length = data.length();
+		if ((length & 1) != 0) {
+			throw new IOException("odd number of characters in Hex string");
+		}
+		final byte[] table = decodingTable;
+		int chars = 0;
+		int invalid = 0;
+		int o = outOff;
+		for (int i = 0; i < length; i += 2) {
+			int c1 = data.charAt(i);
+			int c2 = data.charAt(i + 1);
+			chars |= c1 | c2;
+			int b1 = table[c1 & 0xff];
+			int b2 = table[c2 & 0xff];
+			invalid |= b1 | b2;
+			out[o++] = (byte) ((b1 << 4) | b2);
+		}
+		// characters beyond 0xff alias table entries, so they are rejected once for the whole string
+		if (invalid < 0 || chars > 0xff) {
+			throw new IOException("invalid characters encountered in Hex string");
+		}
+		return length >> 1;
+	}
+
+	@Override
+	public int encode(ByteBuffer src, ByteBuffer dst) {
+		int length = src.remaining();
+		if (dst.remaining() < length * 2) {
+			throw new BufferOverflowException();
+		}
+		if (src.hasArray() && dst.hasArray()) {
+			encode(src.array(), src.arrayOffset() + src.position(), length, dst.array(), dst.arrayOffset() + dst.position());
+			src.position(src.limit());
+			dst.position(dst.position() + length * 2);
+			return length * 2;
+		}
+		int o = dst.position();
+		for (int i = src.position(); i < src.limit(); i++) {
+			int p = (src.get(i) & 0xff) << 1;
+			dst.put(o++, (byte) pairTable[p]);
+			dst.put(o++, (byte) pairTable[p + 1]);
+		}
+		src.position(src.limit());
+		dst.position(o);
+		return length * 2;
+	}
+
 	private static boolean ignore(char c) {
 		return c == '\n' || c == '\r' || c == '\t' || c == ' ';
 	}
@@ -83,11 +235,11 @@ public class HexEncoder implements Encoder {
 			while (i < end && ignore((char) data[i])) {
 				i++;
 			}
-			b1 = decodingTable[data[i++]];
+			b1 = decodingTable[data[i++] & 0xff];
 			while (i < end && ignore((char) data[i])) {
 				i++;
 			}
-			b2 = decodingTable[data[i++]];
+			b2 = decodingTable[data[i++] & 0xff];
 			if ((b1 | b2) < 0) {
 				throw new IOException("invalid characters encountered in Hex data");
 			}
@@ -127,4 +279,37 @@ public class HexEncoder implements Encoder {
 		return length;
 	}
 
+	@Override
+	public int decode(ByteBuffer src, ByteBuffer dst) throws IOException {
+		int o = dst.position();
+		int b1 = 0;
+		boolean high = true;
+		for (int i = src.position(); i < src.limit(); i++) {
+			char c = (char) (src.get(i) & 0xff);
+			if (ignore(c)) {
+				continue;
+			}
+			int b = decodingTable[c];
+			if (b < 0) {
+				throw new IOException("invalid characters encountered in Hex data");
+			}
+			if (high) {
+				b1 = b;
+			}
+			else {
+				if (o == dst.limit()) {
+					throw new BufferOverflowException();
+				}
+				dst.put(o++, (byte) ((b1 << 4) | b));
+			}
+			high = !high;
+		}
+		if (!high) {
+			throw new IOException("odd number of characters in Hex data");
+		}
+		int length = o - dst.position();
+		src.position(src.limit());
+		dst.position(o);
+		return length;
+	}
 }
@@ -0,0 +1,80 @@
+/*
+ *    Copyright [2019] [shuwei.wang (c) wswill@foxmail.com]
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package org.spreadme.commons.codec;
+
+/**
+ * Encode a long into a fixed width text
+ * <p>the long is treated as unsigned and left padded with the zero digit of the alphabet, so the
+ * encodings of an ordered alphabet sort like the values. Encoding writes into a caller supplied
+ * char array and allocates nothing.</p>
+ * @author shuwei.wang
+ * @since 1.0.0
+ */
+public interface LongEncoder {
+
+	/**
+	 * the fixed number of characters of an encoded long
+	 *
+	 * @return encoded length
+	 */
+	int getLongEncodedLength();
+
+	/**
+	 * encode the value into the given char array, which must have room for
+	 * {@link #getLongEncodedLength()} chars from outOff.
+	 *
+	 * @param value unsigned value
+	 * @param out output array
+	 * @param outOff output offset
+	 * @return the number of chars produced.
+	 */
+	int encode(long value, char[] out, int outOff);
+
+	/**
+	 * decode an encoded long, the leading zero digits may be omitted
+	 *
+	 * @param data encoded long
+	 * @param off off
+	 * @param length length
+	 * @return unsigned value
+	 * @throws IllegalArgumentException if the data is not a valid encoded long
+	 */
+	long decodeLong(CharSequence data, int off, int length);
+
+	/**
+	 * encode the value as a fixed width String
+	 *
+	 * @param value unsigned value
+	 * @return encoded long
+	 */
+	default String toString(long value) {
+		char[] encoded = new char[getLongEncodedLength()];
+		encode(value, encoded, 0);
+		return new String(encoded);
+	}
+
+	/**
+	 * decode an encoded long, the leading zero digits may be omitted
+	 *
+	 * @param data encoded long
+	 * @return unsigned value
+	 * @throws IllegalArgumentException if the data is not a valid encoded long
+	 */
+	default long decodeLong(CharSequence data) {
+		return decodeLong(data, 0, data.length());
+	}
+}
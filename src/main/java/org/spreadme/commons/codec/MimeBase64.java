@@ -0,0 +1,66 @@
+/*
+ *    Copyright [2019] [shuwei.wang (c) wswill@foxmail.com]
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package org.spreadme.commons.codec;
+
+/**
+ * MimeBase64
+ * <p>mime base64 with 76 characters CRLF separated lines, see {@link MimeBase64Encoder}</p>
+ * @author shuwei.wang
+ * @since 1.0.0
+ */
+public abstract class MimeBase64 {
+
+	private static final Base64Encoder encoder = new MimeBase64Encoder();
+
+	public static String toBase64String(byte[] data) {
+		return Base64.toBase64String(encoder, data, 0, data.length);
+	}
+
+	public static String toBase64String(byte[] data, int off, int length) {
+		return Base64.toBase64String(encoder, data, off, length);
+	}
+
+	/**
+	 * encode the input data producing a base 64 encoded byte array.
+	 *
+	 * @param data data
+	 * @return a byte array containing the base 64 encoded data.
+	 */
+	public static byte[] encode(byte[] data) {
+		return Base64.encode(encoder, data, 0, data.length);
+	}
+
+	/**
+	 * decode the base 64 encoded input data.
+	 *
+	 * @param data data
+	 * @return a byte array representing the decoded data.
+	 */
+	public static byte[] decode(byte[] data) {
+		return Base64.decode(encoder, data);
+	}
+
+	/**
+	 * decode the base 64 encoded String data - whitespace will be ignored.
+	 *
+	 * @param data data
+	 * @return a byte array representing the decoded data.
+	 */
+	public static byte[] decode(String data) {
+		return Base64.decode(encoder, data);
+	}
+}
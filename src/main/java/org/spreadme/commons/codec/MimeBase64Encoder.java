@@ -0,0 +1,45 @@
+/*
+ *    Copyright [2019] [shuwei.wang (c) wswill@foxmail.com]
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package org.spreadme.commons.codec;
+
+/**
+ * mime base64 encoder
+ * <p>RFC 2045 base 64: standard alphabet with padding, encoded lines of at most 76 characters
+ * separated by CRLF. Whitespace is ignored when decoding.</p>
+ * @author shuwei.wang
+ * @since 1.0.0
+ */
+public class MimeBase64Encoder extends Base64Encoder {
+
+	public static final int MIME_LINE_LENGTH = 76;
+
+	private static final byte[] CRLF = {'\r', '\n'};
+
+	public MimeBase64Encoder() {
+		this(MIME_LINE_LENGTH, CRLF);
+	}
+
+	/**
+	 * Create a mime base64 encoder
+	 *
+	 * @param lineLength the maximum encoded line length, a multiple of 4
+	 * @param lineSeparator the line separator
+	 */
+	public MimeBase64Encoder(int lineLength, byte[] lineSeparator) {
+		super(STANDARD_ENCODING_TABLE, true, lineLength, lineSeparator);
+	}
+}
@@ -0,0 +1,280 @@
+/*
+ *    Copyright [2019] [shuwei.wang (c) wswill@foxmail.com]
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package org.spreadme.commons.codec;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * radix encoder
+ * <p>encodes bytes as one big-endian number in the base of its alphabet, every leading zero byte
+ * is kept as a leading zero digit. The conversion is quadratic in the data length, so it suits short
+ * values such as identifiers and keys rather than bulk data.</p>
+ * @author shuwei.wang
+ * @since 1.0.0
+ */
+public abstract class RadixEncoder implements Encoder, LongEncoder {
+
+	protected final byte[] encodingTable;
+
+	protected final byte[] decodingTable = new byte[256];
+
+	protected final int base;
+
+	// the characters needed for the 64 bits of a long
+	private final int longEncodedLength;
+
+	protected RadixEncoder(byte[] encodingTable) {
+		this.encodingTable = encodingTable.clone();
+		this.base = encodingTable.length;
+		Arrays.fill(decodingTable, (byte) 0xff);
+		for (int i = 0; i < encodingTable.length; i++) {
+			decodingTable[encodingTable[i]] = (byte) i;
+		}
+		this.longEncodedLength = (int) Math.ceil(64 / (Math.log(base) / Math.log(2)));
+	}
+
+	/**
+	 * encode the input data producing a byte array
+	 *
+	 * @param data data
+	 * @param off off
+	 * @param length length
+	 * @return the encoded data
+	 */
+	public byte[] encode(byte[] data, int off, int length) {
+		byte[] digits = new byte[length * 2];
+		int start = toDigits(data, off, length, digits);
+		byte[] encoded = new byte[digits.length - start];
+		for (int i = 0; i < encoded.length; i++) {
+			encoded[i] = encodingTable[digits[start + i]];
+		}
+		return encoded;
+	}
+
+	/**
+	 * encode the input data producing a String, the digits are written straight into a char array
+	 *
+	 * @param data data
+	 * @param off off
+	 * @param length length
+	 * @return the encoded data
+	 */
+	public String toString(byte[] data, int off, int length) {
+		byte[] digits = new byte[length * 2];
+		int start = toDigits(data, off, length, digits);
+		char[] encoded = new char[digits.length - start];
+		for (int i = 0; i < encoded.length; i++) {
+			encoded[i] = (char) encodingTable[digits[start + i]];
+		}
+		return new String(encoded);
+	}
+
+	/**
+	 * converts the data into digit values at the end of the given array,
+	 * which must have room for length * 2 digits
+	 *
+	 * @return the index of the first digit
+	 */
+	private int toDigits(byte[] data, int off, int length, byte[] digits) {
+		int zeros = 0;
+		while (zeros < length && data[off + zeros] == 0) {
+			zeros++;
+		}
+		byte[] number = Arrays.copyOfRange(data, off, off + length);
+		// log(256) / log(base) digits per byte, at most 2 for a base of 16 or more
+		int outputStart = digits.length;
+		for (int inputStart = zeros; inputStart < length; ) {
+			digits[--outputStart] = divmod(number, inputStart, 256, base);
+			if (number[inputStart] == 0) {
+				inputStart++;
+			}
+		}
+		while (outputStart < digits.length && digits[outputStart] == 0) {
+			outputStart++;
+		}
+		while (--zeros >= 0) {
+			digits[--outputStart] = 0;
+		}
+		return outputStart;
+	}
+
+	/**
+	 * decode the encoded data, whitespace is not allowed
+	 *
+	 * @param data data
+	 * @param off off
+	 * @param length length
+	 * @return the decoded data
+	 * @throws IOException if the data contains invalid characters
+	 */
+	public byte[] decode(byte[] data, int off, int length) throws IOException {
+		byte[] number = new byte[length];
+		int invalid = 0;
+		for (int i = 0; i < length; i++) {
+			int digit = decodingTable[data[off + i] & 0xff];
+			invalid |= digit;
+			number[i] = (byte) digit;
+		}
+		if (invalid < 0) {
+			throw new IOException("invalid characters encountered in base" + base + " data");
+		}
+		int zeros = 0;
+		while (zeros < length && number[zeros] == 0) {
+			zeros++;
+		}
+		byte[] decoded = new byte[length];
+		int outputStart = decoded.length;
+		for (int inputStart = zeros; inputStart < length; ) {
+			decoded[--outputStart] = divmod(number, inputStart, base, 256);
+			if (number[inputStart] == 0) {
+				inputStart++;
+			}
+		}
+		while (outputStart < decoded.length && decoded[outputStart] == 0) {
+			outputStart++;
+		}
+		return Arrays.copyOfRange(decoded, outputStart - zeros, decoded.length);
+	}
+
+	/**
+	 * divides the number in place and returns the remainder
+	 */
+	private static byte divmod(byte[] number, int firstDigit, int base, int divisor) {
+		int remainder = 0;
+		for (int i = firstDigit; i < number.length; i++) {
+			int temp = remainder * base + (number[i] & 0xff);
+			number[i] = (byte) (temp / divisor);
+			remainder = temp % divisor;
+		}
+		return (byte) remainder;
+	}
+
+	@Override
+	public int encode(byte[] data, int off, int length, OutputStream out) throws IOException {
+		byte[] encoded = encode(data, off, length);
+		out.write(encoded);
+		return encoded.length;
+	}
+
+	@Override
+	public int decode(byte[] data, int off, int length, OutputStream out) throws IOException {
+		int start = off;
+		int end = off + length;
+		while (start < end && Character.isWhitespace(data[start])) {
+			start++;
+		}
+		while (end > start && Character.isWhitespace(data[end - 1])) {
+			end--;
+		}
+		byte[] decoded = decode(data, start, end - start);
+		out.write(decoded);
+		return decoded.length;
+	}
+
+	@Override
+	public int decode(String data, OutputStream out) throws IOException {
+		String trimmed = data.trim();
+		byte[] bytes = new byte[trimmed.length()];
+		for (int i = 0; i < bytes.length; i++) {
+			char c = trimmed.charAt(i);
+			if (c > 0x7f) {
+				throw new IOException("invalid characters encountered in base" + base + " string");
+			}
+			bytes[i] = (byte) c;
+		}
+		return decode(bytes, 0, bytes.length, out);
+	}
+
+	@Override
+	public int encode(ByteBuffer src, ByteBuffer dst) {
+		byte[] data = new byte[src.remaining()];
+		src.duplicate().get(data);
+		byte[] encoded = encode(data, 0, data.length);
+		if (dst.remaining() < encoded.length) {
+			throw new BufferOverflowException();
+		}
+		dst.put(encoded);
+		src.position(src.limit());
+		return encoded.length;
+	}
+
+	@Override
+	public int decode(ByteBuffer src, ByteBuffer dst) throws IOException {
+		byte[] data = new byte[src.remaining()];
+		src.duplicate().get(data);
+		byte[] decoded = decode(data, 0, data.length);
+		if (dst.remaining() < decoded.length) {
+			throw new BufferOverflowException();
+		}
+		dst.put(decoded);
+		src.position(src.limit());
+		return decoded.length;
+	}
+
+	@Override
+	public int getLongEncodedLength() {
+		return longEncodedLength;
+	}
+
+	@Override
+	public int encode(long value, char[] out, int outOff) {
+		final byte[] table = encodingTable;
+		int i = outOff + longEncodedLength - 1;
+		if (value < 0) {
+			// unsigned division of the top bit once, the remaining quotient fits a signed long
+			long quotient = ((value >>> 1) / base) << 1;
+			long remainder = value - quotient * base;
+			if (remainder >= base) {
+				quotient++;
+				remainder -= base;
+			}
+			out[i--] = (char) table[(int) remainder];
+			value = quotient;
+		}
+		for (; i >= outOff; i--) {
+			out[i] = (char) table[(int) (value % base)];
+			value /= base;
+		}
+		return longEncodedLength;
+	}
+
+	@Override
+	public long decodeLong(CharSequence data, int off, int length) {
+		if (length == 0 || length > longEncodedLength) {
+			throw new IllegalArgumentException("invalid base" + base + " long length: " + length);
+		}
+		long max = Long.divideUnsigned(-1L, base);
+		long value = 0;
+		for (int i = off; i < off + length; i++) {
+			char c = data.charAt(i);
+			int digit = c > 0xff ? -1 : decodingTable[c];
+			if (digit < 0 || Long.compareUnsigned(value, max) > 0) {
+				throw new IllegalArgumentException("invalid base" + base + " long: " + data.subSequence(off, off + length));
+			}
+			long next = value * base + digit;
+			if (Long.compareUnsigned(next, value * base) < 0) {
+				throw new IllegalArgumentException("base" + base + " long overflow: " + data.subSequence(off, off + length));
+			}
+			value = next;
+		}
+		return value;
+	}
+}
@@ -0,0 +1,77 @@
+/*
+ *    Copyright [2019] [shuwei.wang (c) wswill@foxmail.com]
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package org.spreadme.commons.digest;
+
+import java.nio.ByteBuffer;
+import java.util.zip.Checksum;
+
+/**
+ * 非加密Checksum的公共部分
+ * <p>在{@link Checksum}的基础上增加ByteBuffer更新(直接内存分段复制到实例内复用的数组), 实例可通过reset复用</p>
+ *
+ * @author shuwei.wang
+ * @since 1.0.0
+ */
+public abstract class AbstractChecksum implements Checksum {
+
+	private static final int SCRATCH_LENGTH = 4 * 1024;
+
+	private final byte[] single = new byte[1];
+
+	private byte[] scratch;
+
+	@Override
+	public void update(int b) {
+		single[0] = (byte) b;
+		update(single, 0, 1);
+	}
+
+	public void update(byte[] b) {
+		update(b, 0, b.length);
+	}
+
+	/**
+	 * 使用ByteBuffer剩余的数据更新, 结束后position移动到limit
+	 *
+	 * @param buffer 数据, 支持堆内及直接内存
+	 */
+	public void update(ByteBuffer buffer) {
+		if (buffer.hasArray()) {
+			update(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+			buffer.position(buffer.limit());
+			return;
+		}
+		if (scratch == null) {
+			scratch = new byte[SCRATCH_LENGTH];
+		}
+		while (buffer.hasRemaining()) {
+			int length = Math.min(buffer.remaining(), scratch.length);
+			buffer.get(scratch, 0, length);
+			update(scratch, 0, length);
+		}
+	}
+
+	static long getLong(byte[] b, int i) {
+		return (b[i] & 0xffL) | (b[i + 1] & 0xffL) << 8 | (b[i + 2] & 0xffL) << 16 | (b[i + 3] & 0xffL) << 24
+				| (b[i + 4] & 0xffL) << 32 | (b[i + 5] & 0xffL) << 40 | (b[i + 6] & 0xffL) << 48 | (b[i + 7] & 0xffL) << 56;
+	}
+
+	static int getInt(byte[] b, int i) {
+		return (b[i] & 0xff) | (b[i + 1] & 0xff) << 8 | (b[i + 2] & 0xff) << 16 | (b[i + 3] & 0xff) << 24;
+	}
+}
@@ -70,7 +70,7 @@ public class BCrypt {
 	private static final int BLOWFISH_NUM_ROUNDS = 16;
 
 	// Initial contents of key schedule
-	private static final int[] P_orig = {
+	static final int[] P_orig = {
 			0x243f6a88, 0x85a308d3, 0x13198a2e, 0x03707344,
 			0xa4093822, 0x299f31d0, 0x082efa98, 0xec4e6c89,
 			0x452821e6, 0x38d01377, 0xbe5466cf, 0x34e90c6c,
@@ -78,7 +78,7 @@ public class BCrypt {
 			0x9216d5d9, 0x8979fb1b
 	};
 
-	private static final int[] S_orig = {
+	static final int[] S_orig = {
 			0xd1310ba6, 0x98dfb5ac, 0x2ffd72db, 0xd01adfb7,
 			0xb8e1afed, 0x6a267e96, 0xba7c9045, 0xf12c7f99,
 			0x24a19947, 0xb3916cf7, 0x0801f2e2, 0x858efc16,
@@ -340,7 +340,7 @@ public class BCrypt {
 	// bcrypt IV: "OrpheanBeholderScryDoubt". The C implementation calls
 	// this "ciphertext", but it is really plaintext or an IV. We keep
 	// the name to make code comparison easier.
-	static private final int[] bf_crypt_ciphertext = {
+	static final int[] bf_crypt_ciphertext = {
 			0x4f727068, 0x65616e42, 0x65686f6c,
 			0x64657253, 0x63727944, 0x6f756274
 	};
@@ -649,7 +649,6 @@ public class BCrypt {
 	 * @return the hashed password
 	 */
 	public static String hashpw(String password, String salt) {
-		BCrypt B;
 		String real_salt;
 		byte[] passwordb;
 		byte[] saltb;
@@ -679,8 +678,7 @@ public class BCrypt {
 
 		saltb = decode_base64(real_salt, BCRYPT_SALT_LEN);
 
-		B = new BCrypt();
-		hashed = B.crypt_raw(passwordb, saltb, rounds, bf_crypt_ciphertext.clone());
+		hashed = BCryptEngine.crypt(passwordb, saltb, rounds);
 
 		rs.append("$2");
 		if (minor >= 'a')
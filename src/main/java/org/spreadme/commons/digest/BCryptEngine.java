@@ -0,0 +1,253 @@
+/*
+ *    Copyright [2019] [shuwei.wang (c) wswill@foxmail.com]
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package org.spreadme.commons.digest;
+
+import java.util.Arrays;
+
+/**
+ * BCrypt核心运算
+ * <p>与{@link BCrypt#crypt_raw(byte[], byte[], int, int[])}结果逐位一致, 区别在于:
+ * Blowfish的P/S数组按线程复用, 每次只从初始值复制而不重新分配, 计算结束后清零;
+ * 口令和盐值在开始时一次性展开为18个密钥字, 代替每轮逐字节的streamtoword;
+ * 4个S盒各用一个256长度的数组, 下标只需取字节而无需拼接偏移;
+ * 密钥扩展中填充S盒的循环(占绝大部分耗时)将P数组读入局部变量并展开16轮Feistel运算.</p>
+ *
+ * @author shuwei.wang
+ * @since 1.0.0
+ */
+public final class BCryptEngine {
+
+	private static final int P_LENGTH = 18;
+
+	private static final int S_LENGTH = 1024;
+
+	private static final int SALT_LENGTH = 16;
+
+	private static final ThreadLocal<BCryptEngine> ENGINE = ThreadLocal.withInitial(BCryptEngine::new);
+
+	private final int[] P = new int[P_LENGTH];
+
+	private final int[] S0 = new int[256];
+
+	private final int[] S1 = new int[256];
+
+	private final int[] S2 = new int[256];
+
+	private final int[] S3 = new int[256];
+
+	private final int[] passwordKey = new int[P_LENGTH];
+
+	private final int[] saltKey = new int[P_LENGTH];
+
+	private BCryptEngine() {
+	}
+
+	/**
+	 * 计算BCrypt的原始哈希值
+	 *
+	 * @param password 口令
+	 * @param salt 16字节盐值
+	 * @param log_rounds 以2为底的轮数对数, 4~30
+	 * @return 24字节哈希值
+	 */
+	public static byte[] crypt(byte[] password, byte[] salt, int log_rounds) {
+		if (log_rounds < 4 || log_rounds > 30) {
+			throw new IllegalArgumentException("Bad number of rounds");
+		}
+		if (salt.length != SALT_LENGTH) {
+			throw new IllegalArgumentException("Bad salt length");
+		}
+		BCryptEngine engine = ENGINE.get();
+		try {
+			return engine.cryptRaw(password, salt, 1 << log_rounds);
+		}
+		finally {
+			engine.clear();
+		}
+	}
+
+	/**
+	 * 清除由口令派生的密钥编排及密钥字, 复用的数组不在线程中保留口令相关的状态
+	 */
+	private void clear() {
+		Arrays.fill(P, 0);
+		Arrays.fill(S0, 0);
+		Arrays.fill(S1, 0);
+		Arrays.fill(S2, 0);
+		Arrays.fill(S3, 0);
+		Arrays.fill(passwordKey, 0);
+		Arrays.fill(saltKey, 0);
+	}
+
+	private byte[] cryptRaw(byte[] password, byte[] salt, int rounds) {
+		System.arraycopy(BCrypt.P_orig, 0, P, 0, P_LENGTH);
+		System.arraycopy(BCrypt.S_orig, 0, S0, 0, 256);
+		System.arraycopy(BCrypt.S_orig, 256, S1, 0, 256);
+		System.arraycopy(BCrypt.S_orig, 512, S2, 0, 256);
+		System.arraycopy(BCrypt.S_orig, 768, S3, 0, 256);
+		toWords(password, passwordKey);
+		toWords(salt, saltKey);
+
+		// 盐值长度为4个字, 循环取用的盐值字即saltKey的前4个
+		ekskey(passwordKey, saltKey);
+		for (int i = 0; i != rounds; i++) {
+			key(passwordKey);
+			key(saltKey);
+		}
+
+		int[] cdata = BCrypt.bf_crypt_ciphertext;
+		byte[] ret = new byte[cdata.length * 4];
+		int[] lr = new int[2];
+		for (int i = 0; i < cdata.length; i += 2) {
+			lr[0] = cdata[i];
+			lr[1] = cdata[i + 1];
+			for (int j = 0; j < 64; j++) {
+				encipher(lr);
+			}
+			putInt(ret, i * 4, lr[0]);
+			putInt(ret, i * 4 + 4, lr[1]);
+		}
+		return ret;
+	}
+
+	/**
+	 * ekskey, 与{@link #key(int[])}相同, 但每个分组加密前先异或循环取用的盐值字, 只执行一次
+	 */
+	private void ekskey(int[] key, int[] data) {
+		for (int i = 0; i < P_LENGTH; i++) {
+			P[i] ^= key[i];
+		}
+		int[] lr = {0, 0};
+		int d = 0;
+		for (int i = 0; i < P_LENGTH + S_LENGTH; i += 2) {
+			lr[0] ^= data[d];
+			lr[1] ^= data[d + 1];
+			d ^= 2;
+			encipher(lr);
+			if (i < P_LENGTH) {
+				P[i] = lr[0];
+				P[i + 1] = lr[1];
+			}
+			else {
+				setS(i - P_LENGTH, lr[0]);
+				setS(i - P_LENGTH + 1, lr[1]);
+			}
+		}
+	}
+
+	/**
+	 * 密钥扩展, 每轮调用两次, 为主要耗时
+	 */
+	private void key(int[] key) {
+		final int[] P = this.P;
+		final int[] S0 = this.S0, S1 = this.S1, S2 = this.S2, S3 = this.S3;
+		for (int i = 0; i < P_LENGTH; i++) {
+			P[i] ^= key[i];
+		}
+
+		int l = 0, r = 0;
+		for (int i = 0; i < P_LENGTH; i += 2) {
+			l ^= P[0];
+			for (int k = 1; k < P_LENGTH - 1; k += 2) {
+				r ^= f(S0, S1, S2, S3, l) ^ P[k];
+				l ^= f(S0, S1, S2, S3, r) ^ P[k + 1];
+			}
+			int t = r ^ P[P_LENGTH - 1];
+			r = l;
+			l = t;
+			P[i] = l;
+			P[i + 1] = r;
+		}
+
+		// 此后P不再变化
+		final int p0 = P[0], p1 = P[1], p2 = P[2], p3 = P[3], p4 = P[4], p5 = P[5],
+				p6 = P[6], p7 = P[7], p8 = P[8], p9 = P[9], p10 = P[10], p11 = P[11],
+				p12 = P[12], p13 = P[13], p14 = P[14], p15 = P[15], p16 = P[16], p17 = P[17];
+		for (int i = 0; i < S_LENGTH; i += 2) {
+			int[] box = i < 256 ? S0 : i < 512 ? S1 : i < 768 ? S2 : S3;
+			l ^= p0;
+			r ^= f(S0, S1, S2, S3, l) ^ p1;
+			l ^= f(S0, S1, S2, S3, r) ^ p2;
+			r ^= f(S0, S1, S2, S3, l) ^ p3;
+			l ^= f(S0, S1, S2, S3, r) ^ p4;
+			r ^= f(S0, S1, S2, S3, l) ^ p5;
+			l ^= f(S0, S1, S2, S3, r) ^ p6;
+			r ^= f(S0, S1, S2, S3, l) ^ p7;
+			l ^= f(S0, S1, S2, S3, r) ^ p8;
+			r ^= f(S0, S1, S2, S3, l) ^ p9;
+			l ^= f(S0, S1, S2, S3, r) ^ p10;
+			r ^= f(S0, S1, S2, S3, l) ^ p11;
+			l ^= f(S0, S1, S2, S3, r) ^ p12;
+			r ^= f(S0, S1, S2, S3, l) ^ p13;
+			l ^= f(S0, S1, S2, S3, r) ^ p14;
+			r ^= f(S0, S1, S2, S3, l) ^ p15;
+			l ^= f(S0, S1, S2, S3, r) ^ p16;
+			int t = r ^ p17;
+			r = l;
+			l = t;
+			box[i & 0xff] = l;
+			box[(i & 0xff) + 1] = r;
+		}
+	}
+
+	/**
+	 * Blowfish加密一个分组, lr[0]和lr[1]为左右两半
+	 */
+	private void encipher(int[] lr) {
+		int l = lr[0] ^ P[0], r = lr[1];
+		for (int k = 1; k < P_LENGTH - 1; k += 2) {
+			r ^= f(S0, S1, S2, S3, l) ^ P[k];
+			l ^= f(S0, S1, S2, S3, r) ^ P[k + 1];
+		}
+		lr[0] = r ^ P[P_LENGTH - 1];
+		lr[1] = l;
+	}
+
+	private void setS(int i, int v) {
+		(i < 256 ? S0 : i < 512 ? S1 : i < 768 ? S2 : S3)[i & 0xff] = v;
+	}
+
+	/**
+	 * Blowfish的F函数
+	 */
+	private static int f(int[] S0, int[] S1, int[] S2, int[] S3, int x) {
+		return ((S0[x >>> 24] + S1[(x >>> 16) & 0xff]) ^ S2[(x >>> 8) & 0xff]) + S3[x & 0xff];
+	}
+
+	/**
+	 * 按{@link BCrypt}的streamtoword规则循环读取data, 展开为密钥字
+	 */
+	private static void toWords(byte[] data, int[] words) {
+		int off = 0;
+		for (int i = 0; i < words.length; i++) {
+			int word = 0;
+			for (int j = 0; j < 4; j++) {
+				word = (word << 8) | (data[off] & 0xff);
+				off = (off + 1) % data.length;
+			}
+			words[i] = word;
+		}
+	}
+
+	private static void putInt(byte[] b, int off, int v) {
+		b[off] = (byte) (v >>> 24);
+		b[off + 1] = (byte) (v >>> 16);
+		b[off + 2] = (byte) (v >>> 8);
+		b[off + 3] = (byte) v;
+	}
+}
@@ -0,0 +1,255 @@
+/*
+ *    Copyright [2019] [shuwei.wang (c) wswill@foxmail.com]
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package org.spreadme.commons.digest;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.spreadme.commons.lang.Assert;
+import org.spreadme.commons.system.sampler.Metrics;
+import org.spreadme.commons.system.sampler.Sampler;
+import org.spreadme.commons.thread.NamedThreadFactory;
+
+/**
+ * 异步BCrypt服务
+ * <p>在固定大小的线程池中执行{@link BCrypt}, 请求线程只拿到{@link CompletableFuture}.
+ * 等待队列有上限, 队列满时直接以{@link RejectedExecutionException}失败; 超时的请求以{@link TimeoutException}失败,
+ * 尚未开始的计算立即移出队列. 返回的future上的回调在单独的线程池中执行, 不占用计算线程.
+ * 拒绝、超时等计数通过{@link #sample()}发布</p>
+ * <pre>
+ * BCryptService service = new BCryptService(4, 64);
+ * service.checkpw(password, hashed, 2, TimeUnit.SECONDS).thenAccept(matched -&gt; ...);
+ * </pre>
+ *
+ * @author shuwei.wang
+ * @since 1.0.0
+ */
+public class BCryptService implements Sampler, Closeable {
+
+	private final ThreadPoolExecutor executor;
+
+	private final ScheduledThreadPoolExecutor timer;
+
+	private final Executor callbackExecutor;
+
+	private final LongAdder submitted = new LongAdder();
+
+	private final LongAdder completed = new LongAdder();
+
+	private final LongAdder failed = new LongAdder();
+
+	private final LongAdder rejected = new LongAdder();
+
+	private final LongAdder timedOut = new LongAdder();
+
+	/**
+	 * 线程数为CPU核数的一半, 每个线程最多排队16个请求
+	 */
+	public BCryptService() {
+		this(Math.max(1, Runtime.getRuntime().availableProcessors() / 2),
+				Math.max(1, Runtime.getRuntime().availableProcessors() / 2) * 16);
+	}
+
+	/**
+	 * 回调在{@link ForkJoinPool#commonPool()}中执行
+	 *
+	 * @param threads 计算线程数
+	 * @param queueCapacity 等待队列上限
+	 */
+	public BCryptService(int threads, int queueCapacity) {
+		this(threads, queueCapacity, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * @param threads 计算线程数
+	 * @param queueCapacity 等待队列上限
+	 * @param callbackExecutor 执行返回的{@link CompletableFuture}上回调的线程池, 回调不占用计算线程
+	 */
+	public BCryptService(int threads, int queueCapacity, Executor callbackExecutor) {
+		Assert.isTrue(threads > 0, "threads must be greater than 0");
+		Assert.notNull(callbackExecutor, "callback executor must not be null");
+		Assert.isTrue(queueCapacity > 0, "queue capacity must be greater than 0");
+		this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+				new LinkedBlockingQueue<>(queueCapacity), new NamedThreadFactory("bcrypt"));
+		this.timer = new ScheduledThreadPoolExecutor(1, new NamedThreadFactory("bcrypt-timeout"));
+		this.timer.setRemoveOnCancelPolicy(true);
+		this.callbackExecutor = callbackExecutor;
+	}
+
+	public CompletableFuture<String> hashpw(String password, String salt) {
+		return submit(() -> BCrypt.hashpw(password, salt), 0L);
+	}
+
+	/**
+	 * 异步计算口令的hash
+	 *
+	 * @param password 口令
+	 * @param salt {@link BCrypt#gensalt()}生成的盐值
+	 * @param timeout 超时时间, 包括排队时间
+	 * @param unit 时间单位
+	 * @return hash
+	 */
+	public CompletableFuture<String> hashpw(String password, String salt, long timeout, TimeUnit unit) {
+		return submit(() -> BCrypt.hashpw(password, salt), unit.toNanos(timeout));
+	}
+
+	public CompletableFuture<Boolean> checkpw(String plaintext, String hashed) {
+		return submit(() -> BCrypt.checkpw(plaintext, hashed), 0L);
+	}
+
+	/**
+	 * 异步校验口令
+	 *
+	 * @param plaintext 口令
+	 * @param hashed 已保存的hash
+	 * @param timeout 超时时间, 包括排队时间
+	 * @param unit 时间单位
+	 * @return 是否一致
+	 */
+	public CompletableFuture<Boolean> checkpw(String plaintext, String hashed, long timeout, TimeUnit unit) {
+		return submit(() -> BCrypt.checkpw(plaintext, hashed), unit.toNanos(timeout));
+	}
+
+	private <T> CompletableFuture<T> submit(Callable<T> task, long timeoutNanos) {
+		CompletableFuture<T> result = new CompletableFuture<>();
+		// 计算线程与超时线程竞争完成state, 胜出的一方再将结果交给callbackExecutor完成result,
+		// 调用方在result上注册的回调不会在计算线程中执行
+		CompletableFuture<T> state = new CompletableFuture<>();
+		FutureTask<Void> future = new FutureTask<>(() -> {
+			// 排队期间已超时则不再计算
+			if (state.isDone()) {
+				return;
+			}
+			try {
+				T value = task.call();
+				if (state.complete(value)) {
+					completed.increment();
+					relay(result, value, null);
+				}
+			}
+			catch (Throwable e) {
+				if (state.completeExceptionally(e)) {
+					failed.increment();
+					relay(result, null, e);
+				}
+			}
+		}, null);
+		try {
+			executor.execute(future);
+		}
+		catch (RejectedExecutionException e) {
+			rejected.increment();
+			result.completeExceptionally(e);
+			return result;
+		}
+		submitted.increment();
+		if (timeoutNanos > 0) {
+			ScheduledFuture<?> timeout = timer.schedule(() -> {
+				TimeoutException e = new TimeoutException("bcrypt timed out after " + timeoutNanos + " ns");
+				if (state.completeExceptionally(e)) {
+					timedOut.increment();
+					future.cancel(false);
+					// 取消的任务会一直占用有界队列直到被取出, 立即移除以释放排队名额
+					executor.remove(future);
+					relay(result, null, e);
+				}
+			}, timeoutNanos, TimeUnit.NANOSECONDS);
+			state.whenComplete((value, e) -> timeout.cancel(false));
+		}
+		return result;
+	}
+
+	private <T> void relay(CompletableFuture<T> result, T value, Throwable e) {
+		Runnable completion = () -> {
+			if (e == null) {
+				result.complete(value);
+			}
+			else {
+				result.completeExceptionally(e);
+			}
+		};
+		try {
+			callbackExecutor.execute(completion);
+		}
+		catch (RejectedExecutionException ex) {
+			completion.run();
+		}
+	}
+
+	public long getSubmitted() {
+		return submitted.sum();
+	}
+
+	public long getCompleted() {
+		return completed.sum();
+	}
+
+	public long getFailed() {
+		return failed.sum();
+	}
+
+	public long getRejected() {
+		return rejected.sum();
+	}
+
+	public long getTimedOut() {
+		return timedOut.sum();
+	}
+
+	/**
+	 * @return 当前排队的请求数
+	 */
+	public int getQueueSize() {
+		return executor.getQueue().size();
+	}
+
+	@Override
+	public List<Metrics> sample() {
+		List<Metrics> metricses = new ArrayList<>();
+		Metrics.of(this, BCryptService::getSubmitted).tags("bcrypt", "submitted").register(metricses);
+		Metrics.of(this, BCryptService::getCompleted).tags("bcrypt", "completed").register(metricses);
+		Metrics.of(this, BCryptService::getFailed).tags("bcrypt", "failed").register(metricses);
+		Metrics.of(this, BCryptService::getRejected).tags("bcrypt", "rejected").register(metricses);
+		Metrics.of(this, BCryptService::getTimedOut).tags("bcrypt", "timeout").register(metricses);
+		Metrics.of(this, BCryptService::getQueueSize).tags("bcrypt", "queue", "size").register(metricses);
+		Metrics.of(executor, ThreadPoolExecutor::getActiveCount).tags("bcrypt", "active").register(metricses);
+		return metricses;
+	}
+
+	/**
+	 * 不再接收新请求, 已排队的请求继续执行完成
+	 */
+	@Override
+	public void close() {
+		executor.shutdown();
+		timer.shutdownNow();
+	}
+}
@@ -0,0 +1,259 @@
+/*
+ *    Copyright [2019] [shuwei.wang (c) wswill@foxmail.com]
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package org.spreadme.commons.digest;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.spreadme.commons.digest.Digest.Algorithm;
+
+/**
+ * 分块摘要, 用于断点续传等分多次(甚至在不同节点)接收数据的场景
+ * <p>JDK的MessageDigest的中间状态无法序列化, 因此每个分块单独计算叶子摘要 H(0x00 || 分块),
+ * 全部分块接收后按{@link Digest#getTreeHash(java.nio.file.Path, Algorithm, int, java.util.concurrent.ForkJoinPool)}
+ * 相同的规则合并为Merkle根, 完成上传时不需要再读取一遍完整数据.
+ * 分块大小均为chunkLength(最后一块可以更小)时, 结果与对合并后文件调用getTreeHash(path, algorithm, chunkLength, pool)相同.</p>
+ * <p>状态只包含各分块的摘要及长度, 通过{@link #getState()}序列化, {@link #fromState(byte[])}恢复.
+ * 分块摘要也可以在接收分块的节点上通过{@link #hashChunk(InputStream, Algorithm)}计算, 再按顺序{@link #add(byte[], long)}</p>
+ * <pre>
+ * ChunkedDigest digest = stored == null ? new ChunkedDigest(Algorithm.SHA256) : ChunkedDigest.fromState(stored);
+ * digest.update(chunkInputStream);
+ * stored = digest.getState();
+ * ...
+ * byte[] root = digest.digest();
+ * </pre>
+ *
+ * @author shuwei.wang
+ * @since 1.0.0
+ */
+public class ChunkedDigest {
+
+	private static final int STATE_VERSION = 1;
+
+	private static final int BUFFER_LENGTH = 8 * 1024;
+
+	private final Algorithm algorithm;
+
+	private final int digestLength;
+
+	private final List<byte[]> chunks = new ArrayList<>();
+
+	private long length = 0;
+
+	public ChunkedDigest(Algorithm algorithm) {
+		this.algorithm = algorithm;
+		this.digestLength = Digest.getMessageDigest(algorithm).getDigestLength();
+	}
+
+	/**
+	 * 计算一个分块的摘要(叶子节点)
+	 *
+	 * @param data 分块数据
+	 * @param off 起始位置
+	 * @param length 长度
+	 * @param algorithm hash算法 {@link Algorithm}
+	 * @return 分块摘要
+	 */
+	public static byte[] hashChunk(byte[] data, int off, int length, Algorithm algorithm) {
+		MessageDigest digest = leafDigest(algorithm);
+		digest.update(data, off, length);
+		return digest.digest();
+	}
+
+	/**
+	 * 读取输入流直到结束作为一个分块计算摘要(叶子节点), 不关闭输入流
+	 *
+	 * @param in 分块数据
+	 * @param algorithm hash算法 {@link Algorithm}
+	 * @return 分块摘要
+	 * @throws IOException IOException
+	 */
+	public static byte[] hashChunk(InputStream in, Algorithm algorithm) throws IOException {
+		MessageDigest digest = leafDigest(algorithm);
+		byte[] buffer = new byte[BUFFER_LENGTH];
+		int readed;
+		while ((readed = in.read(buffer)) != -1) {
+			digest.update(buffer, 0, readed);
+		}
+		return digest.digest();
+	}
+
+	public byte[] update(byte[] chunk) {
+		return update(chunk, 0, chunk.length);
+	}
+
+	/**
+	 * 追加一个分块
+	 *
+	 * @param chunk 分块数据
+	 * @param off 起始位置
+	 * @param length 长度
+	 * @return 分块摘要
+	 */
+	public byte[] update(byte[] chunk, int off, int length) {
+		byte[] hash = hashChunk(chunk, off, length, algorithm);
+		add(hash, length);
+		return hash;
+	}
+
+	/**
+	 * 追加ByteBuffer剩余的数据作为一个分块, 结束后position移动到limit
+	 *
+	 * @param chunk 分块数据
+	 * @return 分块摘要
+	 */
+	public byte[] update(ByteBuffer chunk) {
+		int length = chunk.remaining();
+		MessageDigest digest = leafDigest(algorithm);
+		digest.update(chunk);
+		byte[] hash = digest.digest();
+		add(hash, length);
+		return hash;
+	}
+
+	/**
+	 * 读取输入流直到结束作为一个分块追加, 不关闭输入流
+	 *
+	 * @param in 分块数据
+	 * @return 分块摘要
+	 * @throws IOException IOException
+	 */
+	public byte[] update(InputStream in) throws IOException {
+		MessageDigest digest = leafDigest(algorithm);
+		byte[] buffer = new byte[BUFFER_LENGTH];
+		long length = 0;
+		int readed;
+		while ((readed = in.read(buffer)) != -1) {
+			digest.update(buffer, 0, readed);
+			length += readed;
+		}
+		byte[] hash = digest.digest();
+		add(hash, length);
+		return hash;
+	}
+
+	/**
+	 * 追加在其他地方计算的分块摘要
+	 *
+	 * @param chunkHash {@link #hashChunk(InputStream, Algorithm)}计算的分块摘要
+	 * @param length 分块长度
+	 */
+	public void add(byte[] chunkHash, long length) {
+		if (chunkHash.length != digestLength) {
+			throw new IllegalArgumentException("chunk hash length must be " + digestLength);
+		}
+		if (length < 0) {
+			throw new IllegalArgumentException("chunk length must not be less than 0");
+		}
+		chunks.add(chunkHash.clone());
+		this.length += length;
+	}
+
+	/**
+	 * 合并所有分块摘要为Merkle根, 不改变状态, 之后仍可继续追加分块
+	 *
+	 * @return Merkle根, 没有分块时为空数据的叶子摘要
+	 */
+	public byte[] digest() {
+		if (chunks.isEmpty()) {
+			return hashChunk(new byte[0], 0, 0, algorithm);
+		}
+		byte[][] nodes = chunks.toArray(new byte[0][]);
+		return Digest.getTreeRoot(nodes, algorithm);
+	}
+
+	public Algorithm getAlgorithm() {
+		return algorithm;
+	}
+
+	public int getChunkCount() {
+		return chunks.size();
+	}
+
+	/**
+	 * @return 所有分块的总长度
+	 */
+	public long getLength() {
+		return length;
+	}
+
+	/**
+	 * 序列化当前状态, 长度为 20 + 算法名 + 分块数 * 摘要长度
+	 *
+	 * @return 状态
+	 */
+	public byte[] getState() {
+		ByteArrayOutputStream state = new ByteArrayOutputStream(20 + chunks.size() * digestLength);
+		try (DataOutputStream out = new DataOutputStream(state)) {
+			out.writeByte(STATE_VERSION);
+			out.writeUTF(algorithm.name());
+			out.writeLong(length);
+			out.writeInt(chunks.size());
+			for (byte[] chunk : chunks) {
+				out.write(chunk);
+			}
+		}
+		catch (IOException e) {
+			throw new DigestException("write chunked digest state error", e);
+		}
+		return state.toByteArray();
+	}
+
+	/**
+	 * 从{@link #getState()}的结果恢复
+	 *
+	 * @param state 状态
+	 * @return ChunkedDigest
+	 */
+	public static ChunkedDigest fromState(byte[] state) {
+		try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(state))) {
+			if (in.readByte() != STATE_VERSION) {
+				throw new IllegalArgumentException("unsupported chunked digest state version");
+			}
+			ChunkedDigest digest = new ChunkedDigest(Algorithm.valueOf(in.readUTF()));
+			digest.length = in.readLong();
+			int count = in.readInt();
+			if (digest.length < 0 || count < 0 || (long) count * digest.digestLength != in.available()) {
+				throw new IllegalArgumentException("corrupted chunked digest state");
+			}
+			for (int i = 0; i < count; i++) {
+				byte[] chunk = new byte[digest.digestLength];
+				in.readFully(chunk);
+				digest.chunks.add(chunk);
+			}
+			return digest;
+		}
+		catch (IOException e) {
+			throw new IllegalArgumentException("corrupted chunked digest state", e);
+		}
+	}
+
+	private static MessageDigest leafDigest(Algorithm algorithm) {
+		MessageDigest digest = Digest.getMessageDigest(algorithm);
+		digest.update(Digest.LEAF_PREFIX);
+		return digest;
+	}
+}
@@ -0,0 +1,150 @@
+/*
+ *    Copyright [2019] [shuwei.wang (c) wswill@foxmail.com]
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package org.spreadme.commons.digest;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.nio.ByteBuffer;
+import java.util.zip.Checksum;
+
+/**
+ * CRC32C(Castagnoli, RFC 3720)
+ * <p>运行在Java 9及以上时委托给JDK的java.util.zip.CRC32C(使用CPU的CRC32指令),
+ * 否则使用slicing-by-8查表实现, 每次处理8个字节</p>
+ *
+ * @author shuwei.wang
+ * @since 1.0.0
+ */
+public final class Crc32c extends AbstractChecksum {
+
+	private static final int POLYNOMIAL = 0x82f63b78;
+
+	private static final int[][] TABLES = new int[8][256];
+
+	private static final MethodHandle JDK_CONSTRUCTOR;
+
+	private static final MethodHandle JDK_UPDATE_BUFFER;
+
+	static {
+		for (int i = 0; i < 256; i++) {
+			int crc = i;
+			for (int j = 0; j < 8; j++) {
+				crc = (crc & 1) != 0 ? (crc >>> 1) ^ POLYNOMIAL : crc >>> 1;
+			}
+			TABLES[0][i] = crc;
+		}
+		for (int i = 0; i < 256; i++) {
+			for (int t = 1; t < 8; t++) {
+				int crc = TABLES[t - 1][i];
+				TABLES[t][i] = (crc >>> 8) ^ TABLES[0][crc & 0xff];
+			}
+		}
+
+		MethodHandle constructor = null;
+		MethodHandle updateBuffer = null;
+		try {
+			MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+			Class<?> type = Class.forName("java.util.zip.CRC32C");
+			constructor = lookup.findConstructor(type, MethodType.methodType(void.class))
+					.asType(MethodType.methodType(Checksum.class));
+			updateBuffer = lookup.findVirtual(Checksum.class, "update", MethodType.methodType(void.class, ByteBuffer.class));
+		}
+		catch (ReflectiveOperationException ignore) {
+			// Java 8, 使用查表实现
+		}
+		JDK_CONSTRUCTOR = constructor;
+		JDK_UPDATE_BUFFER = updateBuffer;
+	}
+
+	private final Checksum delegate;
+
+	private int crc = -1;
+
+	public Crc32c() {
+		this(true);
+	}
+
+	Crc32c(boolean jdk) {
+		this.delegate = jdk && JDK_CONSTRUCTOR != null ? newJdkChecksum() : null;
+	}
+
+	/**
+	 * @return 是否委托给JDK的实现
+	 */
+	public static boolean isJdkAvailable() {
+		return JDK_CONSTRUCTOR != null;
+	}
+
+	@Override
+	public void update(byte[] b, int off, int len) {
+		if (delegate != null) {
+			delegate.update(b, off, len);
+			return;
+		}
+		final int[] t0 = TABLES[0], t1 = TABLES[1], t2 = TABLES[2], t3 = TABLES[3],
+				t4 = TABLES[4], t5 = TABLES[5], t6 = TABLES[6], t7 = TABLES[7];
+		int crc = this.crc;
+		int end = off + len;
+		for (; off <= end - 8; off += 8) {
+			crc ^= getInt(b, off);
+			crc = t7[crc & 0xff] ^ t6[(crc >>> 8) & 0xff] ^ t5[(crc >>> 16) & 0xff] ^ t4[crc >>> 24]
+					^ t3[b[off + 4] & 0xff] ^ t2[b[off + 5] & 0xff] ^ t1[b[off + 6] & 0xff] ^ t0[b[off + 7] & 0xff];
+		}
+		for (; off < end; off++) {
+			crc = (crc >>> 8) ^ t0[(crc ^ b[off]) & 0xff];
+		}
+		this.crc = crc;
+	}
+
+	@Override
+	public void update(ByteBuffer buffer) {
+		if (delegate == null) {
+			super.update(buffer);
+			return;
+		}
+		try {
+			JDK_UPDATE_BUFFER.invokeExact(delegate, buffer);
+		}
+		catch (Throwable e) {
+			throw new DigestException("crc32c update error", e);
+		}
+	}
+
+	@Override
+	public long getValue() {
+		return delegate != null ? delegate.getValue() : ~crc & 0xffffffffL;
+	}
+
+	@Override
+	public void reset() {
+		if (delegate != null) {
+			delegate.reset();
+		}
+		crc = -1;
+	}
+
+	private static Checksum newJdkChecksum() {
+		try {
+			return (Checksum) JDK_CONSTRUCTOR.invokeExact();
+		}
+		catch (Throwable e) {
+			throw new DigestException("crc32c init error", e);
+		}
+	}
+}
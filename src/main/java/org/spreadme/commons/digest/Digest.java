@@ -16,13 +16,22 @@
 
 package org.spreadme.commons.digest;
 
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.zip.Checksum;
 
 import org.spreadme.commons.codec.Hex;
 import org.spreadme.commons.lang.Nullable;
@@ -40,6 +49,17 @@ import org.spreadme.commons.lang.Randoms;
 public abstract class Digest {
 
 	private static final int BUFFER_LENGTH = 8 * 1024;
+
+	// 文件映射窗口大小
+	private static final long MAP_LENGTH = 64 * 1024 * 1024;
+
+	// 树形摘要默认分块大小
+	public static final int DEFAULT_TREE_CHUNK_LENGTH = 4 * 1024 * 1024;
+
+	// Merkle树叶子节点及中间节点的前缀, 区分两种节点防止第二原像攻击
+	static final byte LEAF_PREFIX = 0x00;
+
+	private static final byte NODE_PREFIX = 0x01;
 	
 	private Digest() {
 	}
@@ -65,6 +85,9 @@ public abstract class Digest {
 		}
 	}
 
+	// 线程内复用的hash值数组, 可容纳SHA-512的64字节
+	private static final ThreadLocal<byte[]> DIGEST_BUFFER = ThreadLocal.withInitial(() -> new byte[64]);
+
 	private static final Map<Algorithm, ThreadLocal<MessageDigest>> MESSAGEDIGEST;
 	static {
 		Algorithm[] algorithms = Algorithm.values();
@@ -92,21 +115,73 @@ public abstract class Digest {
 	}
 
 	public static byte[] get(byte[] bytes, Algorithm algorithm) {
-		try (ByteArrayInputStream inputStream = new ByteArrayInputStream(bytes)) {
-			return get(inputStream, algorithm);
-		} catch (IOException e) {
-			throw new DigestException(e.getMessage(), e);
-		}
+		return getMessageDigest(algorithm).digest(bytes);
 	}
-	
+
+	/**
+	 * 字节数组的指定范围进行Hash运算
+	 *
+	 * @param bytes 数据
+	 * @param off 起始位置
+	 * @param length 长度
+	 * @param algorithm hash算法 {@link Algorithm}
+	 * @return hash值
+	 */
+	public static byte[] get(byte[] bytes, int off, int length, Algorithm algorithm) {
+		MessageDigest digest = getMessageDigest(algorithm);
+		digest.update(bytes, off, length);
+		return digest.digest();
+	}
+
+	/**
+	 * ByteBuffer剩余的数据进行Hash运算, 结束后position移动到limit
+	 *
+	 * @param buffer 数据, 支持堆内及直接内存
+	 * @param algorithm hash算法 {@link Algorithm}
+	 * @return hash值
+	 */
+	public static byte[] get(ByteBuffer buffer, Algorithm algorithm) {
+		MessageDigest digest = getMessageDigest(algorithm);
+		digest.update(buffer);
+		return digest.digest();
+	}
+
 	public static String toHexString(byte[] bytes, Algorithm algorithm) {
-		try (ByteArrayInputStream inputStream = new ByteArrayInputStream(bytes)) {
-			return toHexString(inputStream, algorithm);
-		} catch (IOException e) {
+		return toHexString(bytes, 0, bytes.length, algorithm);
+	}
+
+	/**
+	 * 字节数组的指定范围进行Hash运算并转换为Hex, hash值写入线程内复用的数组, 只分配结果String
+	 *
+	 * @param bytes 数据
+	 * @param off 起始位置
+	 * @param length 长度
+	 * @param algorithm hash算法 {@link Algorithm}
+	 * @return hash值的Hex
+	 */
+	public static String toHexString(byte[] bytes, int off, int length, Algorithm algorithm) {
+		MessageDigest digest = getMessageDigest(algorithm);
+		digest.update(bytes, off, length);
+		return toHexString(digest);
+	}
+
+	public static String toHexString(ByteBuffer buffer, Algorithm algorithm) {
+		MessageDigest digest = getMessageDigest(algorithm);
+		digest.update(buffer);
+		return toHexString(digest);
+	}
+
+	private static String toHexString(MessageDigest digest) {
+		byte[] result = DIGEST_BUFFER.get();
+		try {
+			int length = digest.digest(result, 0, result.length);
+			return Hex.toHexString(result, 0, length);
+		}
+		catch (java.security.DigestException e) {
 			throw new DigestException(e.getMessage(), e);
 		}
 	}
-	
+
 	/**
 	 * 输入流进行Hash运算
 	 *
@@ -132,7 +207,182 @@ public abstract class Digest {
 	}
 
 	/**
-	 * 对输入的字符串进行hash运算
+	 * 文件进行Hash运算, 按64MB的窗口映射文件并直接更新MessageDigest, 不经过堆内缓冲区
+	 *
+	 * @param path 文件路径
+	 * @param algorithm hash算法 {@link Algorithm}
+	 * @return hash值
+	 * @throws IOException IOException
+	 */
+	public static byte[] get(Path path, Algorithm algorithm) throws IOException {
+		MessageDigest digest = getMessageDigest(algorithm);
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			long size = channel.size();
+			for (long position = 0; position < size; position += MAP_LENGTH) {
+				MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(MAP_LENGTH, size - position));
+				digest.update(buffer);
+			}
+		}
+		return digest.digest();
+	}
+
+	public static String toHexString(Path path, Algorithm algorithm) throws IOException {
+		return Hex.toHexString(get(path, algorithm));
+	}
+
+	/**
+	 * 单次读取输入流同时计算多种hash及checksum, 较大的数据块并行更新
+	 *
+	 * @param in InputStream {@link InputStream}
+	 * @param algorithms hash算法 {@link Algorithm}
+	 * @param checksums 同时更新的checksum, 如{@link java.util.zip.CRC32}, 通过getValue获取结果
+	 * @return 各算法的hash值
+	 * @throws IOException IOException
+	 * @see MultiDigest
+	 */
+	public static Map<Algorithm, byte[]> get(InputStream in, Set<Algorithm> algorithms, Checksum... checksums) throws IOException {
+		MultiDigest digest = new MultiDigest(algorithms, checksums);
+		digest.setPool(ForkJoinPool.commonPool());
+		digest.update(in);
+		return digest.digest();
+	}
+
+	/**
+	 * 单次映射文件同时计算多种hash及checksum, 较大的数据块并行更新
+	 *
+	 * @param path 文件路径
+	 * @param algorithms hash算法 {@link Algorithm}
+	 * @param checksums 同时更新的checksum, 如{@link java.util.zip.CRC32}, 通过getValue获取结果
+	 * @return 各算法的hash值
+	 * @throws IOException IOException
+	 * @see MultiDigest
+	 */
+	public static Map<Algorithm, byte[]> get(Path path, Set<Algorithm> algorithms, Checksum... checksums) throws IOException {
+		MultiDigest digest = new MultiDigest(algorithms, checksums);
+		digest.setPool(ForkJoinPool.commonPool());
+		digest.update(path);
+		return digest.digest();
+	}
+
+	/**
+	 * 文件的Merkle树形摘要, 以{@link #DEFAULT_TREE_CHUNK_LENGTH}分块
+	 *
+	 * @param path 文件路径
+	 * @param algorithm hash算法 {@link Algorithm}
+	 * @return Merkle根
+	 * @throws IOException IOException
+	 * @see #getTreeHash(Path, Algorithm, int, ForkJoinPool)
+	 */
+	public static byte[] getTreeHash(Path path, Algorithm algorithm) throws IOException {
+		return getTreeHash(path, algorithm, DEFAULT_TREE_CHUNK_LENGTH, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * 文件的Merkle树形摘要, 各分块在ForkJoinPool中并行映射及计算
+	 * <p>叶子节点为 H(0x00 || 分块), 中间节点为 H(0x01 || 左 || 右), 奇数个节点时最后一个直接提升到上一层,
+	 * 空文件视为一个空分块. 结果只取决于文件内容、算法及分块大小, 与{@link #get(Path, Algorithm)}的结果不同</p>
+	 *
+	 * @param path 文件路径
+	 * @param algorithm hash算法 {@link Algorithm}
+	 * @param chunkLength 分块大小
+	 * @param pool 计算分块摘要的线程池
+	 * @return Merkle根
+	 * @throws IOException IOException
+	 */
+	public static byte[] getTreeHash(Path path, Algorithm algorithm, int chunkLength, ForkJoinPool pool) throws IOException {
+		if (chunkLength <= 0) {
+			throw new IllegalArgumentException("chunk length must be greater than 0");
+		}
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			long size = channel.size();
+			int chunks = (int) Math.max(1, (size + chunkLength - 1) / chunkLength);
+			byte[][] nodes = new byte[chunks][];
+			try {
+				pool.invoke(new LeafHashAction(channel, size, chunkLength, algorithm, nodes, 0, chunks));
+			}
+			catch (UncheckedIOException e) {
+				throw e.getCause();
+			}
+			// 叶子数量不多, 在当前线程完成合并
+			return getTreeRoot(nodes, algorithm);
+		}
+	}
+
+	/**
+	 * 由叶子节点自底向上合并出Merkle根, nodes会被覆盖
+	 */
+	static byte[] getTreeRoot(byte[][] nodes, Algorithm algorithm) {
+		MessageDigest digest = getMessageDigest(algorithm);
+		for (int count = nodes.length; count > 1; count = (count + 1) / 2) {
+			for (int i = 0; i < count / 2; i++) {
+				digest.update(NODE_PREFIX);
+				digest.update(nodes[2 * i]);
+				digest.update(nodes[2 * i + 1]);
+				nodes[i] = digest.digest();
+			}
+			if ((count & 1) != 0) {
+				nodes[count / 2] = nodes[count - 1];
+			}
+		}
+		return nodes[0];
+	}
+
+	/**
+	 * 并行计算[from, to)分块的叶子节点
+	 */
+	private static class LeafHashAction extends RecursiveAction {
+
+		private static final long serialVersionUID = -3925168514327840139L;
+
+		private final transient FileChannel channel;
+
+		private final long size;
+
+		private final int chunkLength;
+
+		private final Algorithm algorithm;
+
+		private final byte[][] nodes;
+
+		private final int from;
+
+		private final int to;
+
+		LeafHashAction(FileChannel channel, long size, int chunkLength, Algorithm algorithm, byte[][] nodes, int from, int to) {
+			this.channel = channel;
+			this.size = size;
+			this.chunkLength = chunkLength;
+			this.algorithm = algorithm;
+			this.nodes = nodes;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from > 1) {
+				int middle = (from + to) >>> 1;
+				invokeAll(new LeafHashAction(channel, size, chunkLength, algorithm, nodes, from, middle),
+						new LeafHashAction(channel, size, chunkLength, algorithm, nodes, middle, to));
+				return;
+			}
+			long position = (long) from * chunkLength;
+			MessageDigest digest = getMessageDigest(algorithm);
+			digest.update(LEAF_PREFIX);
+			try {
+				if (position < size) {
+					digest.update(channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(chunkLength, size - position)));
+				}
+			}
+			catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+			nodes[from] = digest.digest();
+		}
+	}
+
+	/**
+	 * 对输入的字符串进行hash运算, 用于存储口令时请使用{@link Pbkdf2}
 	 *
 	 * @param data data
 	 * @param salt 盐值
@@ -148,10 +398,15 @@ public abstract class Digest {
 		}
 		// 第一次散列
 		byte[] result = digest.digest(data);
-		// 如果迭代次数>1，进一步迭代散列
-		for (int i = 1; i < iterations; i++) {
-			digest.reset();
-			result = digest.digest(result);
+		// 如果迭代次数>1，进一步迭代散列, 结果原地写回, 每次迭代不再分配数组
+		try {
+			for (int i = 1; i < iterations; i++) {
+				digest.update(result);
+				digest.digest(result, 0, result.length);
+			}
+		}
+		catch (java.security.DigestException e) {
+			throw new DigestException(e.getMessage(), e);
 		}
 		return result;
 	}
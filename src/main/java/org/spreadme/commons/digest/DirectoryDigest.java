@@ -0,0 +1,389 @@
+/*
+ *    Copyright [2019] [shuwei.wang (c) wswill@foxmail.com]
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package org.spreadme.commons.digest;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Phaser;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.spreadme.commons.codec.DecoderException;
+import org.spreadme.commons.codec.Hex;
+import org.spreadme.commons.digest.Digest.Algorithm;
+import org.spreadme.commons.thread.NamedThreadFactory;
+
+/**
+ * 目录树摘要
+ * <p>遍历目录时每发现一个文件即提交到固定大小的线程池, 使用{@link Digest#get(Path, Algorithm)}(内存映射)计算摘要,
+ * 不预先收集文件列表. 线程池队列已满时由遍历线程自己计算, 遍历速度不会超过计算速度.
+ * 符号链接不跟随, 记录为大小为-1、摘要为链接目标路径摘要的条目, 新增或修改目标的链接同样反映在根摘要中;
+ * 其他非普通文件不计入.
+ * 结果为按相对路径排序的{@link Manifest}及其根摘要. 传入上一次的Manifest时,
+ * 大小及修改时间均未变化的文件直接沿用上次的摘要.</p>
+ * <pre>
+ * try (DirectoryDigest directoryDigest = new DirectoryDigest(Algorithm.SHA256, 8)) {
+ *     Manifest manifest = directoryDigest.digest(root, previous);
+ *     String rootHash = manifest.getRootHash();
+ * }
+ * </pre>
+ *
+ * @author shuwei.wang
+ * @since 1.0.0
+ */
+public class DirectoryDigest implements Closeable {
+
+	private final Algorithm algorithm;
+
+	private final ThreadPoolExecutor executor;
+
+	/**
+	 * @param algorithm hash算法 {@link Algorithm}
+	 * @param threads 计算摘要的线程数
+	 */
+	public DirectoryDigest(Algorithm algorithm, int threads) {
+		if (threads <= 0) {
+			throw new IllegalArgumentException("threads must be greater than 0");
+		}
+		this.algorithm = algorithm;
+		this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<>(threads * 4), new NamedThreadFactory("directory-digest"),
+				// 与CallerRunsPolicy不同, 线程池关闭后也由遍历线程执行, 每个注册到Phaser的任务都会到达
+				(task, pool) -> task.run());
+	}
+
+	public Manifest digest(Path root) throws IOException {
+		return digest(root, null);
+	}
+
+	/**
+	 * 计算目录树的Manifest
+	 *
+	 * @param root 根目录
+	 * @param previous 上一次的结果, 为null时计算所有文件
+	 * @return Manifest
+	 * @throws IOException IOException
+	 */
+	public Manifest digest(Path root, Manifest previous) throws IOException {
+		if (executor.isShutdown()) {
+			throw new IllegalStateException("directory digest is closed");
+		}
+		if (previous != null && previous.algorithm != algorithm) {
+			throw new IllegalArgumentException("previous manifest uses " + previous.algorithm);
+		}
+		ConcurrentSkipListMap<String, Entry> entries = new ConcurrentSkipListMap<>();
+		AtomicInteger hashed = new AtomicInteger();
+		AtomicReference<IOException> error = new AtomicReference<>();
+		Phaser phaser = new Phaser(1);
+		try {
+			Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+
+				@Override
+				public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+					if (attrs.isSymbolicLink()) {
+						// links are not followed, the entry records the link target
+						String target = Files.readSymbolicLink(file).toString();
+						byte[] hash = Digest.get(target.getBytes(StandardCharsets.UTF_8), algorithm);
+						entries.put(toRelativePath(root, file), new Entry(Entry.SYMBOLIC_LINK, attrs.lastModifiedTime().toMillis(), hash));
+						return FileVisitResult.CONTINUE;
+					}
+					if (!attrs.isRegularFile()) {
+						return FileVisitResult.CONTINUE;
+					}
+					String path = toRelativePath(root, file);
+					long size = attrs.size();
+					long lastModified = attrs.lastModifiedTime().toMillis();
+					Entry cached = previous == null ? null : previous.entries.get(path);
+					if (cached != null && cached.size == size && cached.lastModified == lastModified) {
+						entries.put(path, cached);
+						return FileVisitResult.CONTINUE;
+					}
+					phaser.register();
+					executor.execute(() -> {
+						try {
+							if (error.get() == null) {
+								entries.put(path, new Entry(size, lastModified, Digest.get(file, algorithm)));
+								hashed.incrementAndGet();
+							}
+						}
+						catch (IOException e) {
+							error.compareAndSet(null, e);
+						}
+						catch (UncheckedIOException e) {
+							error.compareAndSet(null, e.getCause());
+						}
+						finally {
+							phaser.arriveAndDeregister();
+						}
+					});
+					return error.get() == null ? FileVisitResult.CONTINUE : FileVisitResult.TERMINATE;
+				}
+			});
+		}
+		finally {
+			phaser.arriveAndAwaitAdvance();
+		}
+		if (error.get() != null) {
+			throw error.get();
+		}
+		return new Manifest(algorithm, entries, hashed.get());
+	}
+
+	@Override
+	public void close() {
+		executor.shutdown();
+	}
+
+	/**
+	 * joins the name elements with /, a backslash in a file name is kept as it is
+	 */
+	private static String toRelativePath(Path root, Path file) {
+		StringBuilder builder = new StringBuilder();
+		for (Path name : root.relativize(file)) {
+			if (builder.length() > 0) {
+				builder.append('/');
+			}
+			builder.append(name.toString());
+		}
+		return builder.toString();
+	}
+
+	/**
+	 * 单个文件的摘要及用于判断是否变化的大小和修改时间
+	 */
+	public static final class Entry {
+
+		// the size of a symbolic link entry, whose hash is that of the link target path (UTF-8)
+		static final long SYMBOLIC_LINK = -1L;
+
+		private final long size;
+
+		private final long lastModified;
+
+		private final byte[] hash;
+
+		Entry(long size, long lastModified, byte[] hash) {
+			this.size = size;
+			this.lastModified = lastModified;
+			this.hash = hash;
+		}
+
+		/**
+		 * @return the file size, -1 for a symbolic link
+		 */
+		public long getSize() {
+			return size;
+		}
+
+		public boolean isSymbolicLink() {
+			return size == SYMBOLIC_LINK;
+		}
+
+		public long getLastModified() {
+			return lastModified;
+		}
+
+		public byte[] getHash() {
+			return hash.clone();
+		}
+	}
+
+	/**
+	 * 按相对路径(以/分隔)排序的文件摘要清单
+	 * <p>根摘要为依次对每个文件的 路径(UTF-8) || 0x00 || 大小(8字节) || 文件摘要 进行Hash运算的结果,
+	 * 只取决于文件路径及内容, 与修改时间无关</p>
+	 * <p>文本格式每行为 "摘要 大小 修改时间 路径", 首行为 "# 算法".
+	 * 路径中的\、换行及回车分别转义为\\、\n及\r</p>
+	 */
+	public static final class Manifest {
+
+		private static final String HEADER = "# ";
+
+		private final Algorithm algorithm;
+
+		private final SortedMap<String, Entry> entries;
+
+		private final int hashedCount;
+
+		private final byte[] rootHash;
+
+		Manifest(Algorithm algorithm, SortedMap<String, Entry> entries, int hashedCount) {
+			this.algorithm = algorithm;
+			this.entries = Collections.unmodifiableSortedMap(entries);
+			this.hashedCount = hashedCount;
+			MessageDigest digest = Digest.getMessageDigest(algorithm);
+			byte[] size = new byte[8];
+			for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+				digest.update(entry.getKey().getBytes(StandardCharsets.UTF_8));
+				digest.update((byte) 0);
+				long value = entry.getValue().size;
+				for (int i = 0; i < 8; i++) {
+					size[i] = (byte) (value >>> (56 - i * 8));
+				}
+				digest.update(size);
+				digest.update(entry.getValue().hash);
+			}
+			this.rootHash = digest.digest();
+		}
+
+		public Algorithm getAlgorithm() {
+			return algorithm;
+		}
+
+		public SortedMap<String, Entry> getEntries() {
+			return entries;
+		}
+
+		/**
+		 * @return 本次实际计算摘要的文件数, 其余沿用了上一次的结果
+		 */
+		public int getHashedCount() {
+			return hashedCount;
+		}
+
+		public String getRootHash() {
+			return Hex.toHexString(rootHash);
+		}
+
+		/**
+		 * 与另一个Manifest相比新增、删除或内容变化的文件
+		 *
+		 * @param other 另一个Manifest
+		 * @return 排序的相对路径
+		 */
+		public List<String> getChanges(Manifest other) {
+			List<String> changes = new ArrayList<>();
+			TreeMap<String, Entry> all = new TreeMap<>(other.entries);
+			all.putAll(entries);
+			for (String path : all.keySet()) {
+				Entry entry = entries.get(path);
+				Entry otherEntry = other.entries.get(path);
+				if (entry == null || otherEntry == null || !MessageDigest.isEqual(entry.hash, otherEntry.hash)) {
+					changes.add(path);
+				}
+			}
+			return changes;
+		}
+
+		public void write(Writer writer) throws IOException {
+			writer.write(HEADER + algorithm.name() + "\n");
+			for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+				Entry value = entry.getValue();
+				writer.write(Hex.toHexString(value.hash) + " " + value.size + " " + value.lastModified + " " + escape(entry.getKey()) + "\n");
+			}
+			writer.flush();
+		}
+
+		/**
+		 * 读取{@link #write(Writer)}写出的Manifest
+		 *
+		 * @param reader Reader
+		 * @return Manifest
+		 * @throws IOException IOException
+		 */
+		public static Manifest read(Reader reader) throws IOException {
+			BufferedReader in = reader instanceof BufferedReader ? (BufferedReader) reader : new BufferedReader(reader);
+			String header = in.readLine();
+			if (header == null || !header.startsWith(HEADER)) {
+				throw new IOException("invalid manifest header");
+			}
+			Algorithm algorithm = Algorithm.valueOf(header.substring(HEADER.length()));
+			TreeMap<String, Entry> entries = new TreeMap<>();
+			String line;
+			while ((line = in.readLine()) != null) {
+				String[] fields = line.split(" ", 4);
+				if (fields.length != 4) {
+					throw new IOException("invalid manifest line: " + line);
+				}
+				try {
+					entries.put(unescape(fields[3]), new Entry(Long.parseLong(fields[1]), Long.parseLong(fields[2]), Hex.decode(fields[0])));
+				}
+				catch (NumberFormatException | DecoderException e) {
+					throw new IOException("invalid manifest line: " + line, e);
+				}
+			}
+			return new Manifest(algorithm, entries, 0);
+		}
+
+		private static String escape(String path) {
+			StringBuilder builder = new StringBuilder(path.length());
+			for (int i = 0; i < path.length(); i++) {
+				char c = path.charAt(i);
+				if (c == '\\') {
+					builder.append("\\\\");
+				}
+				else if (c == '\n') {
+					builder.append("\\n");
+				}
+				else if (c == '\r') {
+					builder.append("\\r");
+				}
+				else {
+					builder.append(c);
+				}
+			}
+			return builder.toString();
+		}
+
+		private static String unescape(String path) throws IOException {
+			StringBuilder builder = new StringBuilder(path.length());
+			for (int i = 0; i < path.length(); i++) {
+				char c = path.charAt(i);
+				if (c != '\\') {
+					builder.append(c);
+					continue;
+				}
+				char escaped = ++i < path.length() ? path.charAt(i) : 0;
+				if (escaped == '\\') {
+					builder.append('\\');
+				}
+				else if (escaped == 'n') {
+					builder.append('\n');
+				}
+				else if (escaped == 'r') {
+					builder.append('\r');
+				}
+				else {
+					throw new IOException("invalid escape in manifest path: " + path);
+				}
+			}
+			return builder.toString();
+		}
+	}
+}
@@ -0,0 +1,125 @@
+/*
+ *    Copyright [2019] [shuwei.wang (c) wswill@foxmail.com]
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package org.spreadme.commons.digest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * 非加密的64位Hash, 用于缓存key、分片及去重等不需要抗碰撞攻击的场景, 比{@link Digest}快一个数量级
+ * <p>字节数组使用静态方法计算, ByteBuffer(直接内存)及输入流使用线程内复用的Checksum实例,
+ * 每次调用均不分配对象. 需要增量计算时使用{@link #newChecksum()}</p>
+ * <pre>
+ * long key = Hash64.XXHASH64.hash(bytes);
+ * int shard = (int) Long.remainderUnsigned(Hash64.MURMUR3_128.hash(bytes), shards);
+ * </pre>
+ *
+ * @author shuwei.wang
+ * @since 1.0.0
+ */
+public enum Hash64 {
+
+	/** CRC32C, 结果为32位无符号数 */
+	CRC32C,
+
+	/** xxHash64, seed为0 */
+	XXHASH64,
+
+	/** MurmurHash3 x64 128位的低64位, seed为0 */
+	MURMUR3_128;
+
+	private static final int BUFFER_LENGTH = 8 * 1024;
+
+	private static final ThreadLocal<byte[]> BUFFER = ThreadLocal.withInitial(() -> new byte[BUFFER_LENGTH]);
+
+	private final ThreadLocal<AbstractChecksum> checksum = ThreadLocal.withInitial(this::newChecksum);
+
+	public long hash(byte[] data) {
+		return hash(data, 0, data.length);
+	}
+
+	public long hash(byte[] data, int off, int len) {
+		switch (this) {
+			case XXHASH64:
+				return XxHash64.hash(data, off, len, 0L);
+			case MURMUR3_128:
+				return Murmur3Hash128.hash64(data, off, len, 0);
+			default:
+				AbstractChecksum crc = checksum();
+				crc.update(data, off, len);
+				return crc.getValue();
+		}
+	}
+
+	/**
+	 * ByteBuffer剩余的数据进行Hash运算, 结束后position移动到limit
+	 *
+	 * @param buffer 数据, 支持堆内及直接内存
+	 * @return hash值
+	 */
+	public long hash(ByteBuffer buffer) {
+		if (buffer.hasArray()) {
+			long value = hash(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+			buffer.position(buffer.limit());
+			return value;
+		}
+		AbstractChecksum checksum = checksum();
+		checksum.update(buffer);
+		return checksum.getValue();
+	}
+
+	/**
+	 * 读取输入流直到结束进行Hash运算, 不关闭输入流
+	 *
+	 * @param in InputStream
+	 * @return hash值
+	 * @throws IOException IOException
+	 */
+	public long hash(InputStream in) throws IOException {
+		AbstractChecksum checksum = checksum();
+		byte[] buffer = BUFFER.get();
+		int length;
+		while ((length = in.read(buffer)) != -1) {
+			checksum.update(buffer, 0, length);
+		}
+		return checksum.getValue();
+	}
+
+	/**
+	 * 创建增量计算的Checksum, 可作为{@link MultiDigest}的参数
+	 *
+	 * @return {@link Crc32c}, {@link XxHash64}或{@link Murmur3Hash128}
+	 */
+	public AbstractChecksum newChecksum() {
+		switch (this) {
+			case XXHASH64:
+				return new XxHash64();
+			case MURMUR3_128:
+				return new Murmur3Hash128();
+			default:
+				return new Crc32c();
+		}
+	}
+
+	private AbstractChecksum checksum() {
+		AbstractChecksum checksum = this.checksum.get();
+		checksum.reset();
+		return checksum;
+	}
+}
@@ -0,0 +1,220 @@
+/*
+ *    Copyright [2019] [shuwei.wang (c) wswill@foxmail.com]
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package org.spreadme.commons.digest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.spreadme.commons.codec.Hex;
+
+/**
+ * HMAC消息认证码
+ * 性能优化, 与{@link Digest}相同使用ThreadLocal缓存, 每个线程按算法及密钥缓存已初始化的Mac,
+ * 重复使用同一密钥时不再查找Provider及初始化
+ *
+ * @author shuwei.wang
+ * @since 1.0.0
+ */
+public abstract class Hmac {
+
+	private static final int BUFFER_LENGTH = 8 * 1024;
+
+	// 每个线程缓存的已初始化Mac数量
+	private static final int MAX_CACHED_KEYS = 16;
+
+	private Hmac() {
+	}
+
+	public enum Algorithm {
+
+		HMAC_MD5("HmacMD5"),
+		HMAC_SHA1("HmacSHA1"),
+		HMAC_SHA224("HmacSHA224"),
+		HMAC_SHA256("HmacSHA256"),
+		HMAC_SHA384("HmacSHA384"),
+		HMAC_SHA512("HmacSHA512");
+
+		private final String value;
+
+		Algorithm(final String value) {
+			this.value = value;
+		}
+
+		public String getValue() {
+			return this.value;
+		}
+	}
+
+	// 线程内按算法及密钥缓存的Mac, 超过数量时淘汰最久未使用的
+	private static final ThreadLocal<Map<MacKey, Mac>> MACS = ThreadLocal.withInitial(
+			() -> new LinkedHashMap<MacKey, Mac>(MAX_CACHED_KEYS * 2, 0.75f, true) {
+
+				private static final long serialVersionUID = 6210475284317826417L;
+
+				@Override
+				protected boolean removeEldestEntry(Map.Entry<MacKey, Mac> eldest) {
+					return size() > MAX_CACHED_KEYS;
+				}
+			});
+
+	public static byte[] get(byte[] key, byte[] data, Algorithm algorithm) {
+		return getMac(key, algorithm).doFinal(data);
+	}
+
+	/**
+	 * 字节数组的指定范围计算HMAC
+	 *
+	 * @param key 密钥
+	 * @param data 数据
+	 * @param off 起始位置
+	 * @param length 长度
+	 * @param algorithm HMAC算法 {@link Algorithm}
+	 * @return HMAC值
+	 */
+	public static byte[] get(byte[] key, byte[] data, int off, int length, Algorithm algorithm) {
+		Mac mac = getMac(key, algorithm);
+		mac.update(data, off, length);
+		return mac.doFinal();
+	}
+
+	/**
+	 * ByteBuffer剩余的数据计算HMAC, 结束后position移动到limit
+	 *
+	 * @param key 密钥
+	 * @param buffer 数据, 支持堆内及直接内存
+	 * @param algorithm HMAC算法 {@link Algorithm}
+	 * @return HMAC值
+	 */
+	public static byte[] get(byte[] key, ByteBuffer buffer, Algorithm algorithm) {
+		Mac mac = getMac(key, algorithm);
+		mac.update(buffer);
+		return mac.doFinal();
+	}
+
+	/**
+	 * 输入流计算HMAC
+	 *
+	 * @param key 密钥
+	 * @param in InputStream {@link InputStream}
+	 * @param algorithm HMAC算法 {@link Algorithm}
+	 * @return HMAC值
+	 * @throws IOException IOException
+	 */
+	public static byte[] get(byte[] key, InputStream in, Algorithm algorithm) throws IOException {
+		byte[] buffer = new byte[BUFFER_LENGTH];
+		Mac mac = getMac(key, algorithm);
+		int readed;
+		while ((readed = in.read(buffer)) > -1) {
+			mac.update(buffer, 0, readed);
+		}
+		return mac.doFinal();
+	}
+
+	public static String toHexString(byte[] key, byte[] data, Algorithm algorithm) {
+		return Hex.toHexString(get(key, data, algorithm));
+	}
+
+	/**
+	 * 以固定时间比较HMAC, 用于校验签名
+	 *
+	 * @param key 密钥
+	 * @param data 数据
+	 * @param expected 待校验的HMAC值
+	 * @param algorithm HMAC算法 {@link Algorithm}
+	 * @return 是否一致
+	 */
+	public static boolean verify(byte[] key, byte[] data, byte[] expected, Algorithm algorithm) {
+		return MessageDigest.isEqual(get(key, data, algorithm), expected);
+	}
+
+	/**
+	 * 获取当前线程中以该密钥初始化并已重置的Mac, 不可跨线程使用
+	 *
+	 * @param key 密钥
+	 * @param algorithm HMAC算法 {@link Algorithm}
+	 * @return Mac {@link Mac}
+	 */
+	public static Mac getMac(byte[] key, Algorithm algorithm) {
+		Map<MacKey, Mac> macs = MACS.get();
+		MacKey macKey = new MacKey(algorithm, key);
+		Mac mac = macs.get(macKey);
+		if (mac == null) {
+			mac = createMac(key, algorithm);
+			// 复制密钥, 调用方之后修改数组不影响缓存
+			macs.put(new MacKey(algorithm, key.clone()), mac);
+		}
+		else {
+			mac.reset();
+		}
+		return mac;
+	}
+
+	private static Mac createMac(byte[] key, Algorithm algorithm) {
+		try {
+			Mac mac = Mac.getInstance(algorithm.getValue());
+			mac.init(new SecretKeySpec(key, algorithm.getValue()));
+			return mac;
+		}
+		catch (GeneralSecurityException e) {
+			throw new DigestException(e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * 缓存的键, 按算法及密钥内容比较
+	 */
+	private static final class MacKey {
+
+		private final Algorithm algorithm;
+
+		private final byte[] key;
+
+		private final int hash;
+
+		MacKey(Algorithm algorithm, byte[] key) {
+			this.algorithm = algorithm;
+			this.key = key;
+			this.hash = 31 * algorithm.hashCode() + Arrays.hashCode(key);
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) {
+				return true;
+			}
+			if (!(o instanceof MacKey)) {
+				return false;
+			}
+			MacKey other = (MacKey) o;
+			return algorithm == other.algorithm && MessageDigest.isEqual(key, other.key);
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+	}
+}
@@ -0,0 +1,244 @@
+/*
+ *    Copyright [2019] [shuwei.wang (c) wswill@foxmail.com]
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package org.spreadme.commons.digest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.zip.Adler32;
+import java.util.zip.CRC32;
+import java.util.zip.Checksum;
+
+import org.spreadme.commons.digest.Digest.Algorithm;
+import org.spreadme.commons.lang.Assert;
+
+/**
+ * 单次读取同时计算多种摘要
+ * <p>每块数据依次更新所有MessageDigest及{@link Checksum}(如CRC32), 输入只需读取一次.
+ * 设置ForkJoinPool后, 较大的数据块由各算法在线程池中并行更新. 非线程安全</p>
+ * <pre>
+ * CRC32 crc32 = new CRC32();
+ * MultiDigest multiDigest = new MultiDigest(EnumSet.of(Algorithm.MD5, Algorithm.SHA256), crc32);
+ * multiDigest.update(path);
+ * Map&lt;Algorithm, byte[]&gt; digests = multiDigest.digest();
+ * long crc = crc32.getValue();
+ * </pre>
+ *
+ * @author shuwei.wang
+ * @since 1.0.0
+ */
+public class MultiDigest {
+
+	// 并行更新的最小数据块
+	private static final int PARALLEL_THRESHOLD = 256 * 1024;
+
+	// 文件映射窗口大小
+	private static final long MAP_LENGTH = 64 * 1024 * 1024;
+
+	private static final int BUFFER_LENGTH = 1024 * 1024;
+
+	private final Map<Algorithm, MessageDigest> digests = new EnumMap<>(Algorithm.class);
+
+	private final Checksum[] checksums;
+
+	private ForkJoinPool pool;
+
+	public MultiDigest(Set<Algorithm> algorithms, Checksum... checksums) {
+		Assert.notNull(algorithms, "algorithms must not be null");
+		for (Algorithm algorithm : algorithms) {
+			try {
+				// 独立的实例, 不与Digest的ThreadLocal实例共享状态
+				digests.put(algorithm, MessageDigest.getInstance(algorithm.getValue()));
+			}
+			catch (NoSuchAlgorithmException e) {
+				throw new DigestException(e.getMessage(), e);
+			}
+		}
+		this.checksums = checksums.clone();
+	}
+
+	public ForkJoinPool getPool() {
+		return pool;
+	}
+
+	/**
+	 * 设置并行更新的线程池, 传入null时顺序更新
+	 *
+	 * @param pool ForkJoinPool
+	 */
+	public void setPool(ForkJoinPool pool) {
+		this.pool = pool;
+	}
+
+	public void update(byte[] data) {
+		update(data, 0, data.length);
+	}
+
+	public void update(byte[] data, int off, int length) {
+		if (isParallel(length)) {
+			List<ForkJoinTask<?>> tasks = new ArrayList<>(digests.size() + checksums.length);
+			for (MessageDigest digest : digests.values()) {
+				tasks.add(ForkJoinTask.adapt(() -> digest.update(data, off, length)));
+			}
+			for (Checksum checksum : checksums) {
+				tasks.add(ForkJoinTask.adapt(() -> checksum.update(data, off, length)));
+			}
+			invokeAll(tasks);
+			return;
+		}
+		for (MessageDigest digest : digests.values()) {
+			digest.update(data, off, length);
+		}
+		for (Checksum checksum : checksums) {
+			checksum.update(data, off, length);
+		}
+	}
+
+	/**
+	 * 使用ByteBuffer更新, 各算法读取buffer的副本, 结束后buffer的position移动到limit
+	 *
+	 * @param buffer ByteBuffer
+	 */
+	public void update(ByteBuffer buffer) {
+		if (buffer.hasArray()) {
+			update(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+			buffer.position(buffer.limit());
+			return;
+		}
+		if (isParallel(buffer.remaining())) {
+			List<ForkJoinTask<?>> tasks = new ArrayList<>(digests.size() + checksums.length);
+			for (MessageDigest digest : digests.values()) {
+				tasks.add(ForkJoinTask.adapt(() -> digest.update(buffer.duplicate())));
+			}
+			for (Checksum checksum : checksums) {
+				tasks.add(ForkJoinTask.adapt(() -> update(checksum, buffer.duplicate())));
+			}
+			invokeAll(tasks);
+		}
+		else {
+			for (MessageDigest digest : digests.values()) {
+				digest.update(buffer.duplicate());
+			}
+			for (Checksum checksum : checksums) {
+				update(checksum, buffer.duplicate());
+			}
+		}
+		buffer.position(buffer.limit());
+	}
+
+	/**
+	 * 读取输入流直到结束
+	 *
+	 * @param in InputStream
+	 * @throws IOException IOException
+	 */
+	public void update(InputStream in) throws IOException {
+		byte[] buffer = new byte[BUFFER_LENGTH];
+		int length;
+		while ((length = readFully(in, buffer)) > 0) {
+			update(buffer, 0, length);
+		}
+	}
+
+	/**
+	 * 映射文件并更新
+	 *
+	 * @param path 文件路径
+	 * @throws IOException IOException
+	 */
+	public void update(Path path) throws IOException {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			long size = channel.size();
+			for (long position = 0; position < size; position += MAP_LENGTH) {
+				MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(MAP_LENGTH, size - position));
+				update(buffer);
+			}
+		}
+	}
+
+	/**
+	 * 完成所有MessageDigest的计算并重置, Checksum的值通过各自的getValue获取
+	 *
+	 * @return 各算法的hash值
+	 */
+	public Map<Algorithm, byte[]> digest() {
+		Map<Algorithm, byte[]> results = new EnumMap<>(Algorithm.class);
+		for (Map.Entry<Algorithm, MessageDigest> entry : digests.entrySet()) {
+			results.put(entry.getKey(), entry.getValue().digest());
+		}
+		return results;
+	}
+
+	/**
+	 * 重置所有MessageDigest及Checksum
+	 */
+	public void reset() {
+		for (MessageDigest digest : digests.values()) {
+			digest.reset();
+		}
+		for (Checksum checksum : checksums) {
+			checksum.reset();
+		}
+	}
+
+	private boolean isParallel(int length) {
+		return pool != null && length >= PARALLEL_THRESHOLD && digests.size() + checksums.length > 1;
+	}
+
+	private void invokeAll(List<ForkJoinTask<?>> tasks) {
+		pool.invoke(ForkJoinTask.adapt(() -> ForkJoinTask.invokeAll(tasks)));
+	}
+
+	private static void update(Checksum checksum, ByteBuffer buffer) {
+		if (checksum instanceof CRC32) {
+			((CRC32) checksum).update(buffer);
+			return;
+		}
+		if (checksum instanceof Adler32) {
+			((Adler32) checksum).update(buffer);
+			return;
+		}
+		byte[] chunk = new byte[Math.min(buffer.remaining(), 8 * 1024)];
+		while (buffer.hasRemaining()) {
+			int length = Math.min(chunk.length, buffer.remaining());
+			buffer.get(chunk, 0, length);
+			checksum.update(chunk, 0, length);
+		}
+	}
+
+	private static int readFully(InputStream in, byte[] buffer) throws IOException {
+		int length = 0;
+		int read;
+		while (length < buffer.length && (read = in.read(buffer, length, buffer.length - length)) > 0) {
+			length += read;
+		}
+		return length;
+	}
+}
@@ -0,0 +1,204 @@
+/*
+ *    Copyright [2019] [shuwei.wang (c) wswill@foxmail.com]
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package org.spreadme.commons.digest;
+
+/**
+ * MurmurHash3 x64 128位
+ * <p>{@link #getValue()}及{@link #hash64(byte[], int, int, int)}返回128位结果的低64位(h1),
+ * 完整结果通过{@link #hash128(byte[], int, int, int, long[])}或{@link #getValue(byte[], int)}获取,
+ * 字节顺序与参考实现及Guava的murmur3_128一致</p>
+ *
+ * @author shuwei.wang
+ * @since 1.0.0
+ */
+public final class Murmur3Hash128 extends AbstractChecksum {
+
+	private static final long C1 = 0x87c37b91114253d5L;
+
+	private static final long C2 = 0x4cf5ad432745937fL;
+
+	private static final int BLOCK_LENGTH = 16;
+
+	private final int seed;
+
+	private final byte[] buffer = new byte[BLOCK_LENGTH];
+
+	private int bufferLength;
+
+	private long totalLength;
+
+	private long h1, h2;
+
+	public Murmur3Hash128() {
+		this(0);
+	}
+
+	public Murmur3Hash128(int seed) {
+		this.seed = seed;
+		reset();
+	}
+
+	/**
+	 * 计算128位hash的低64位
+	 *
+	 * @param data 数据
+	 * @param off 起始位置
+	 * @param len 长度
+	 * @param seed 种子
+	 * @return h1
+	 */
+	public static long hash64(byte[] data, int off, int len, int seed) {
+		return hash128(data, off, len, seed, null);
+	}
+
+	/**
+	 * 计算128位hash
+	 *
+	 * @param data 数据
+	 * @param off 起始位置
+	 * @param len 长度
+	 * @param seed 种子
+	 * @param out 不为null时依次写入h1及h2
+	 * @return h1
+	 */
+	public static long hash128(byte[] data, int off, int len, int seed, long[] out) {
+		long h1 = seed & 0xffffffffL, h2 = h1;
+		int end = off + len;
+		for (; off <= end - BLOCK_LENGTH; off += BLOCK_LENGTH) {
+			h1 = mixH1(h1, h2, getLong(data, off));
+			h2 = mixH2(h1, h2, getLong(data, off + 8));
+		}
+		return finish(h1, h2, len, data, off, end - off, out);
+	}
+
+	@Override
+	public void update(byte[] b, int off, int len) {
+		totalLength += len;
+		if (bufferLength > 0) {
+			int count = Math.min(len, BLOCK_LENGTH - bufferLength);
+			System.arraycopy(b, off, buffer, bufferLength, count);
+			bufferLength += count;
+			off += count;
+			len -= count;
+			if (bufferLength < BLOCK_LENGTH) {
+				return;
+			}
+			block(buffer, 0);
+			bufferLength = 0;
+		}
+		int end = off + len;
+		for (; off <= end - BLOCK_LENGTH; off += BLOCK_LENGTH) {
+			block(b, off);
+		}
+		bufferLength = end - off;
+		System.arraycopy(b, off, buffer, 0, bufferLength);
+	}
+
+	@Override
+	public long getValue() {
+		return finish(h1, h2, totalLength, buffer, 0, bufferLength, null);
+	}
+
+	/**
+	 * 将128位结果按小端序写入out
+	 *
+	 * @param out 结果数组, 至少16字节
+	 * @param off 起始位置
+	 */
+	public void getValue(byte[] out, int off) {
+		long[] h = new long[2];
+		finish(h1, h2, totalLength, buffer, 0, bufferLength, h);
+		for (int i = 0; i < 8; i++) {
+			out[off + i] = (byte) (h[0] >>> (i * 8));
+			out[off + 8 + i] = (byte) (h[1] >>> (i * 8));
+		}
+	}
+
+	@Override
+	public void reset() {
+		h1 = seed & 0xffffffffL;
+		h2 = h1;
+		bufferLength = 0;
+		totalLength = 0;
+	}
+
+	private void block(byte[] b, int off) {
+		h1 = mixH1(h1, h2, getLong(b, off));
+		h2 = mixH2(h1, h2, getLong(b, off + 8));
+	}
+
+	private static long mixH1(long h1, long h2, long k1) {
+		h1 ^= mixK1(k1);
+		h1 = Long.rotateLeft(h1, 27) + h2;
+		return h1 * 5 + 0x52dce729;
+	}
+
+	private static long mixH2(long h1, long h2, long k2) {
+		h2 ^= mixK2(k2);
+		h2 = Long.rotateLeft(h2, 31) + h1;
+		return h2 * 5 + 0x38495ab5;
+	}
+
+	private static long mixK1(long k1) {
+		return Long.rotateLeft(k1 * C1, 31) * C2;
+	}
+
+	private static long mixK2(long k2) {
+		return Long.rotateLeft(k2 * C2, 33) * C1;
+	}
+
+	/**
+	 * 处理不足16字节的剩余数据并完成最终混合
+	 */
+	private static long finish(long h1, long h2, long length, byte[] b, int off, int len, long[] out) {
+		long k1 = 0, k2 = 0;
+		for (int i = len - 1; i >= 8; i--) {
+			k2 = (k2 << 8) | (b[off + i] & 0xffL);
+		}
+		for (int i = Math.min(len, 8) - 1; i >= 0; i--) {
+			k1 = (k1 << 8) | (b[off + i] & 0xffL);
+		}
+		if (len > 8) {
+			h2 ^= mixK2(k2);
+		}
+		if (len > 0) {
+			h1 ^= mixK1(k1);
+		}
+		h1 ^= length;
+		h2 ^= length;
+		h1 += h2;
+		h2 += h1;
+		h1 = fmix(h1);
+		h2 = fmix(h2);
+		h1 += h2;
+		h2 += h1;
+		if (out != null) {
+			out[0] = h1;
+			out[1] = h2;
+		}
+		return h1;
+	}
+
+	private static long fmix(long k) {
+		k ^= k >>> 33;
+		k *= 0xff51afd7ed558ccdL;
+		k ^= k >>> 33;
+		k *= 0xc4ceb9fe1a85ec53L;
+		return k ^ k >>> 33;
+	}
+}
@@ -0,0 +1,176 @@
+/*
+ *    Copyright [2019] [shuwei.wang (c) wswill@foxmail.com]
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package org.spreadme.commons.digest;
+
+import java.security.GeneralSecurityException;
+import java.util.concurrent.TimeUnit;
+
+import javax.crypto.Mac;
+import javax.crypto.SecretKey;
+
+import org.spreadme.commons.lang.Assert;
+
+/**
+ * PBKDF2-HMAC(RFC 8018)密钥派生
+ * <p>整个派生只初始化一次Mac, 每次迭代通过{@link Mac#doFinal(byte[], int)}将中间结果写入预先分配的数组,
+ * 不再复制摘要状态. 结果与JCE的PBKDF2WithHmacSHA*一致</p>
+ * <pre>
+ * int iterations = Pbkdf2.calibrate(Pbkdf2.Algorithm.HMAC_SHA256, 200);
+ * byte[] hash = Pbkdf2.derive(password, salt, iterations, 32, Pbkdf2.Algorithm.HMAC_SHA256);
+ * </pre>
+ *
+ * @author shuwei.wang
+ * @since 1.0.0
+ */
+public abstract class Pbkdf2 {
+
+	private Pbkdf2() {
+	}
+
+	public enum Algorithm {
+
+		HMAC_SHA1(Digest.Algorithm.SHA1),
+		HMAC_SHA256(Digest.Algorithm.SHA256),
+		HMAC_SHA512(Digest.Algorithm.SHA512);
+
+		private final Digest.Algorithm digest;
+
+		Algorithm(final Digest.Algorithm digest) {
+			this.digest = digest;
+		}
+
+		public Digest.Algorithm getDigest() {
+			return this.digest;
+		}
+
+		public String getValue() {
+			return "Hmac" + this.digest.getValue().replace("-", "");
+		}
+	}
+
+	/**
+	 * 派生密钥
+	 *
+	 * @param password 口令
+	 * @param salt 盐值
+	 * @param iterations 迭代次数
+	 * @param keyLength 派生密钥的字节长度
+	 * @param algorithm PRF算法 {@link Algorithm}
+	 * @return 派生密钥
+	 */
+	public static byte[] derive(byte[] password, byte[] salt, int iterations, int keyLength, Algorithm algorithm) {
+		Assert.notNull(password, "password must not be null");
+		Assert.notNull(salt, "salt must not be null");
+		Assert.isTrue(iterations > 0, "iterations must be greater than 0");
+		Assert.isTrue(keyLength > 0, "key length must be greater than 0");
+		try {
+			Mac mac = Mac.getInstance(algorithm.getValue());
+			mac.init(new PasswordKey(password, algorithm.getValue()));
+			int digestLength = mac.getMacLength();
+			byte[] derived = new byte[keyLength];
+			byte[] index = new byte[4];
+			byte[] u = new byte[digestLength];
+			for (int block = 1, off = 0; off < keyLength; block++, off += digestLength) {
+				index[0] = (byte) (block >>> 24);
+				index[1] = (byte) (block >>> 16);
+				index[2] = (byte) (block >>> 8);
+				index[3] = (byte) block;
+				// U1 = HMAC(P, S || INT(i))
+				mac.update(salt);
+				mac.update(index);
+				mac.doFinal(u, 0);
+				int length = Math.min(digestLength, keyLength - off);
+				System.arraycopy(u, 0, derived, off, length);
+				for (int i = 1; i < iterations; i++) {
+					// U(j) = HMAC(P, U(j-1))
+					mac.update(u);
+					mac.doFinal(u, 0);
+					for (int j = 0; j < length; j++) {
+						derived[off + j] ^= u[j];
+					}
+				}
+			}
+			return derived;
+		}
+		catch (GeneralSecurityException e) {
+			throw new DigestException(e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * 估算当前机器上派生一次耗时约为targetMillis毫秒的迭代次数
+	 *
+	 * @param algorithm PRF算法 {@link Algorithm}
+	 * @param targetMillis 目标耗时(毫秒)
+	 * @return 迭代次数
+	 */
+	public static int calibrate(Algorithm algorithm, long targetMillis) {
+		Assert.isTrue(targetMillis > 0, "target millis must be greater than 0");
+		byte[] password = new byte[16];
+		byte[] salt = new byte[16];
+		// 预热, 使摘要运算完成JIT编译
+		for (int i = 0; i < 20; i++) {
+			derive(password, salt, 1000, 1, algorithm);
+		}
+		long minNanos = TimeUnit.MILLISECONDS.toNanos(Math.min(targetMillis, 50));
+		int iterations = 1000;
+		long elapsed;
+		while (true) {
+			long start = System.nanoTime();
+			derive(password, salt, iterations, 1, algorithm);
+			elapsed = Math.max(1, System.nanoTime() - start);
+			if (elapsed >= minNanos || iterations >= Integer.MAX_VALUE / 2) {
+				break;
+			}
+			iterations *= 2;
+		}
+		double scaled = (double) iterations * TimeUnit.MILLISECONDS.toNanos(targetMillis) / elapsed;
+		return (int) Math.max(1, Math.min(Integer.MAX_VALUE, scaled));
+	}
+
+	/**
+	 * 口令密钥, SecretKeySpec不接受空口令, 而PBKDF2允许
+	 */
+	private static final class PasswordKey implements SecretKey {
+
+		private static final long serialVersionUID = 3417205216418370284L;
+
+		private final byte[] password;
+
+		private final String algorithm;
+
+		PasswordKey(byte[] password, String algorithm) {
+			this.password = password.clone();
+			this.algorithm = algorithm;
+		}
+
+		@Override
+		public String getAlgorithm() {
+			return algorithm;
+		}
+
+		@Override
+		public String getFormat() {
+			return "RAW";
+		}
+
+		@Override
+		public byte[] getEncoded() {
+			return password.clone();
+		}
+	}
+}
@@ -0,0 +1,176 @@
+/*
+ *    Copyright [2019] [shuwei.wang (c) wswill@foxmail.com]
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package org.spreadme.commons.digest;
+
+/**
+ * xxHash64
+ * <p>一次性计算使用{@link #hash(byte[], int, int, long)}, 不分配对象;
+ * 流式计算创建实例后多次update, 实例可通过reset复用. 两种方式结果一致</p>
+ *
+ * @author shuwei.wang
+ * @since 1.0.0
+ */
+public final class XxHash64 extends AbstractChecksum {
+
+	private static final long P1 = 0x9E3779B185EBCA87L;
+
+	private static final long P2 = 0xC2B2AE3D27D4EB4FL;
+
+	private static final long P3 = 0x165667B19E3779F9L;
+
+	private static final long P4 = 0x85EBCA77C2B2AE63L;
+
+	private static final long P5 = 0x27D4EB2F165667C5L;
+
+	private static final int STRIPE_LENGTH = 32;
+
+	private final long seed;
+
+	private final byte[] buffer = new byte[STRIPE_LENGTH];
+
+	private int bufferLength;
+
+	private long totalLength;
+
+	private long v1, v2, v3, v4;
+
+	public XxHash64() {
+		this(0L);
+	}
+
+	public XxHash64(long seed) {
+		this.seed = seed;
+		reset();
+	}
+
+	public static long hash(byte[] data, long seed) {
+		return hash(data, 0, data.length, seed);
+	}
+
+	/**
+	 * 计算xxHash64
+	 *
+	 * @param data 数据
+	 * @param off 起始位置
+	 * @param len 长度
+	 * @param seed 种子
+	 * @return hash值
+	 */
+	public static long hash(byte[] data, int off, int len, long seed) {
+		int end = off + len;
+		long h;
+		if (len >= STRIPE_LENGTH) {
+			long v1 = seed + P1 + P2, v2 = seed + P2, v3 = seed, v4 = seed - P1;
+			for (; off <= end - STRIPE_LENGTH; off += STRIPE_LENGTH) {
+				v1 = round(v1, getLong(data, off));
+				v2 = round(v2, getLong(data, off + 8));
+				v3 = round(v3, getLong(data, off + 16));
+				v4 = round(v4, getLong(data, off + 24));
+			}
+			h = converge(v1, v2, v3, v4);
+		}
+		else {
+			h = seed + P5;
+		}
+		return finish(h + len, data, off, end - off);
+	}
+
+	@Override
+	public void update(byte[] b, int off, int len) {
+		totalLength += len;
+		if (bufferLength > 0) {
+			int count = Math.min(len, STRIPE_LENGTH - bufferLength);
+			System.arraycopy(b, off, buffer, bufferLength, count);
+			bufferLength += count;
+			off += count;
+			len -= count;
+			if (bufferLength < STRIPE_LENGTH) {
+				return;
+			}
+			stripe(buffer, 0);
+			bufferLength = 0;
+		}
+		int end = off + len;
+		for (; off <= end - STRIPE_LENGTH; off += STRIPE_LENGTH) {
+			stripe(b, off);
+		}
+		bufferLength = end - off;
+		System.arraycopy(b, off, buffer, 0, bufferLength);
+	}
+
+	@Override
+	public long getValue() {
+		long h = totalLength >= STRIPE_LENGTH ? converge(v1, v2, v3, v4) : seed + P5;
+		return finish(h + totalLength, buffer, 0, bufferLength);
+	}
+
+	@Override
+	public void reset() {
+		v1 = seed + P1 + P2;
+		v2 = seed + P2;
+		v3 = seed;
+		v4 = seed - P1;
+		bufferLength = 0;
+		totalLength = 0;
+	}
+
+	private void stripe(byte[] b, int off) {
+		v1 = round(v1, getLong(b, off));
+		v2 = round(v2, getLong(b, off + 8));
+		v3 = round(v3, getLong(b, off + 16));
+		v4 = round(v4, getLong(b, off + 24));
+	}
+
+	private static long round(long acc, long input) {
+		return Long.rotateLeft(acc + input * P2, 31) * P1;
+	}
+
+	private static long merge(long h, long v) {
+		return (h ^ round(0, v)) * P1 + P4;
+	}
+
+	private static long converge(long v1, long v2, long v3, long v4) {
+		long h = Long.rotateLeft(v1, 1) + Long.rotateLeft(v2, 7) + Long.rotateLeft(v3, 12) + Long.rotateLeft(v4, 18);
+		h = merge(h, v1);
+		h = merge(h, v2);
+		h = merge(h, v3);
+		return merge(h, v4);
+	}
+
+	/**
+	 * 处理不足一个stripe的剩余数据并完成雪崩
+	 */
+	private static long finish(long h, byte[] b, int off, int len) {
+		int end = off + len;
+		for (; off <= end - 8; off += 8) {
+			h = Long.rotateLeft(h ^ round(0, getLong(b, off)), 27) * P1 + P4;
+		}
+		if (off <= end - 4) {
+			h = Long.rotateLeft(h ^ (getInt(b, off) & 0xffffffffL) * P1, 23) * P2 + P3;
+			off += 4;
+		}
+		for (; off < end; off++) {
+			h = Long.rotateLeft(h ^ (b[off] & 0xffL) * P5, 11) * P1;
+		}
+		h ^= h >>> 33;
+		h *= P2;
+		h ^= h >>> 29;
+		h *= P3;
+		return h ^ h >>> 32;
+	}
+}
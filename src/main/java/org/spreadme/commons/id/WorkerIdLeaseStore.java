@@ -0,0 +1,54 @@
+/*
+ *    Copyright [2019] [shuwei.wang (c) wswill@foxmail.com]
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package org.spreadme.commons.id;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Worker Id Lease Store
+ * <p>a lease store hands out exclusive worker ids to the nodes sharing it</p>
+ * @author shuwei.wang
+ */
+public interface WorkerIdLeaseStore extends Closeable {
+
+	/**
+	 * Tries to lease the worker id, never blocks.
+	 *
+	 * @param workerId worker id
+	 * @return true if the lease is now held by the caller
+	 * @throws IOException IOException
+	 */
+	boolean tryLease(long workerId) throws IOException;
+
+	/**
+	 * Renews a lease held by the caller.
+	 *
+	 * @param workerId worker id
+	 * @return false if the lease has been lost
+	 * @throws IOException IOException
+	 */
+	boolean renew(long workerId) throws IOException;
+
+	/**
+	 * Releases a lease held by the caller.
+	 *
+	 * @param workerId worker id
+	 * @throws IOException IOException
+	 */
+	void release(long workerId) throws IOException;
+}
@@ -57,4 +57,26 @@ public abstract class AbstractStringIdentifierGenerator implements StringIdentif
 	public String nextIdentifier() {
 		return this.nextStringIdentifier();
 	}
+
+	/**
+	 * Parses the non negative number between start and end of an identifier without
+	 * copying the characters into a new String.
+	 *
+	 * @param id identifier
+	 * @param start start index, inclusive
+	 * @param end end index, exclusive
+	 * @param radix radix
+	 * @return the parsed value
+	 */
+	protected static long parseDigits(final CharSequence id, final int start, final int end, final int radix) {
+		long value = 0;
+		for (int i = start; i < end; i++) {
+			int digit = Character.digit(id.charAt(i), radix);
+			if (digit < 0) {
+				throw new IllegalArgumentException("'" + id + "' is not an id from this generator");
+			}
+			value = value * radix + digit;
+		}
+		return value;
+	}
 }
@@ -0,0 +1,116 @@
+/*
+ *    Copyright [2019] [shuwei.wang (c) wswill@foxmail.com]
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package org.spreadme.commons.id.support;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.spreadme.commons.id.WorkerIdLeaseStore;
+import org.spreadme.commons.lang.Assert;
+import org.spreadme.commons.util.IOUtil;
+
+/**
+ * File Lock Worker Id Lease Store
+ * <p>Every worker id maps to a lease file in the directory which is held through
+ * {@link FileChannel#tryLock()}, the operating system drops the lock when the process dies,
+ * so liveness comes from the lock itself and a renewal only checks that the lock is still valid.</p>
+ * <p>Nodes sharing the directory share one worker id space.</p>
+ * @author shuwei.wang
+ */
+public class FileLockWorkerIdLeaseStore implements WorkerIdLeaseStore {
+
+	private static final String LEASE_FILE_PREFIX = "worker-";
+
+	private static final String LEASE_FILE_SUFFIX = ".lease";
+
+	private final Path directory;
+
+	private final Map<Long, FileLock> leases = new ConcurrentHashMap<>();
+
+	public FileLockWorkerIdLeaseStore(Path directory) throws IOException {
+		Assert.notNull(directory, "lease directory must not be null");
+		this.directory = Files.createDirectories(directory);
+	}
+
+	@Override
+	public boolean tryLease(long workerId) throws IOException {
+		if (leases.containsKey(workerId)) {
+			return false;
+		}
+		FileChannel channel = FileChannel.open(getLeaseFile(workerId),
+				StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+		FileLock lock;
+		try {
+			lock = channel.tryLock();
+		}
+		catch (OverlappingFileLockException ex) {
+			// the lease is held by another store in this jvm
+			lock = null;
+		}
+		catch (IOException | RuntimeException ex) {
+			IOUtil.close(channel);
+			throw ex;
+		}
+		if (lock == null) {
+			IOUtil.close(channel);
+			return false;
+		}
+		leases.put(workerId, lock);
+		return true;
+	}
+
+	@Override
+	public boolean renew(long workerId) throws IOException {
+		FileLock lock = leases.get(workerId);
+		return lock != null && lock.isValid();
+	}
+
+	@Override
+	public void release(long workerId) throws IOException {
+		FileLock lock = leases.remove(workerId);
+		if (lock != null) {
+			try {
+				lock.release();
+			}
+			finally {
+				lock.channel().close();
+			}
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		for (Long workerId : leases.keySet()) {
+			release(workerId);
+		}
+	}
+
+	public Path getDirectory() {
+		return directory;
+	}
+
+	private Path getLeaseFile(long workerId) {
+		return directory.resolve(LEASE_FILE_PREFIX + workerId + LEASE_FILE_SUFFIX);
+	}
+}
@@ -0,0 +1,129 @@
+/*
+ *    Copyright [2019] [shuwei.wang (c) wswill@foxmail.com]
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package org.spreadme.commons.id.support;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.spreadme.commons.lang.Assert;
+import org.spreadme.commons.system.sampler.Metrics;
+import org.spreadme.commons.system.sampler.Sampler;
+
+/**
+ * Generator Statistics
+ * <p>Contention counters of an identifier generator, published as {@link Metrics}.
+ * Generators only record into it once it is set, so instrumentation costs a null check when disabled.</p>
+ * <pre>
+ * GeneratorStatistics statistics = new GeneratorStatistics("order");
+ * snowflakeLongGenerator.setStatistics(statistics);
+ * List&lt;Metrics&gt; metricses = statistics.sample();
+ * </pre>
+ * @author shuwei.wang
+ */
+public class GeneratorStatistics implements Sampler {
+
+	private final String name;
+
+	private final LongAdder generated = new LongAdder();
+
+	private final LongAdder exhausted = new LongAdder();
+
+	private final LongAdder spinWaitNanos = new LongAdder();
+
+	private final LongAdder clockRegressions = new LongAdder();
+
+	private long lastSampleGenerated = 0L;
+
+	private long lastSampleNanos = System.nanoTime();
+
+	public GeneratorStatistics(String name) {
+		Assert.notNull(name, "statistics name must not be null");
+		this.name = name;
+	}
+
+	/**
+	 * an identifier has been generated
+	 */
+	public void recordGenerated() {
+		generated.increment();
+	}
+
+	/**
+	 * the identifiers of the current time unit ran out
+	 *
+	 * @param spinNanos nanoseconds spent waiting for the next time unit
+	 */
+	public void recordExhausted(long spinNanos) {
+		exhausted.increment();
+		spinWaitNanos.add(spinNanos);
+	}
+
+	/**
+	 * the clock moved backwards
+	 */
+	public void recordClockRegression() {
+		clockRegressions.increment();
+	}
+
+	public long getGenerated() {
+		return generated.sum();
+	}
+
+	public long getExhausted() {
+		return exhausted.sum();
+	}
+
+	public long getSpinWaitNanos() {
+		return spinWaitNanos.sum();
+	}
+
+	public long getClockRegressions() {
+		return clockRegressions.sum();
+	}
+
+	@Override
+	public synchronized List<Metrics> sample() {
+		long now = System.nanoTime();
+		long total = getGenerated();
+		double elapsedSeconds = (now - lastSampleNanos) / (double) TimeUnit.SECONDS.toNanos(1);
+		double rate = elapsedSeconds > 0 ? (total - lastSampleGenerated) / elapsedSeconds : 0D;
+		lastSampleNanos = now;
+		lastSampleGenerated = total;
+
+		List<Metrics> metricses = new ArrayList<>();
+		Metrics.of(total, Long::doubleValue)
+				.tags(name, "id", "generated")
+				.register(metricses);
+		Metrics.of(rate, Double::doubleValue)
+				.tags(name, "id", "rate")
+				.timeunit(TimeUnit.SECONDS)
+				.register(metricses);
+		Metrics.of(this, GeneratorStatistics::getExhausted)
+				.tags(name, "id", "exhausted")
+				.register(metricses);
+		Metrics.of(this, GeneratorStatistics::getSpinWaitNanos)
+				.tags(name, "id", "spin", "wait")
+				.timeunit(TimeUnit.NANOSECONDS)
+				.register(metricses);
+		Metrics.of(this, GeneratorStatistics::getClockRegressions)
+				.tags(name, "id", "clock", "regression")
+				.register(metricses);
+		return metricses;
+	}
+}
@@ -32,6 +32,8 @@ public class NumericGenerator extends AbstractStringIdentifierGenerator implemen
 	/** The counter. */
 	private long count;
 
+	private transient GeneratorStatistics statistics;
+
 	public NumericGenerator(boolean wrap, long initialValue) {
 		this.wrapping = wrap;
 		this.count = initialValue;
@@ -48,15 +50,50 @@ public class NumericGenerator extends AbstractStringIdentifierGenerator implemen
 		else {
 			synchronized (this) {
 				if (count == Long.MAX_VALUE) {
+					if (statistics != null) {
+						statistics.recordExhausted(0L);
+					}
 					throw new IllegalStateException
 							("The maximum number of identifiers has been reached");
 				}
 				value = count++;
 			}
 		}
+		if (statistics != null) {
+			statistics.recordGenerated();
+		}
 		return Long.toString(value);
 	}
 
+	public GeneratorStatistics getStatistics() {
+		return statistics;
+	}
+
+	/**
+	 * Enables the contention statistics of this generator, null disables it.
+	 *
+	 * @param statistics generator statistics
+	 */
+	public void setStatistics(GeneratorStatistics statistics) {
+		this.statistics = statistics;
+	}
+
+	/**
+	 * Decodes the counter value of an identifier from this generator.
+	 *
+	 * @param id identifier
+	 * @return the counter value
+	 */
+	public long getValueFromId(final CharSequence id) {
+		if (id == null || id.length() == 0 || id.length() > MAX_LONG_NUMERIC_VALUE_LENGTH) {
+			throw new IllegalArgumentException("'" + id + "' is not an id from this generator");
+		}
+		if (id.charAt(0) == '-') {
+			return -parseDigits(id, 1, id.length(), 10);
+		}
+		return parseDigits(id, 0, id.length(), 10);
+	}
+
 	public long maxLength() {
 		return AbstractStringIdentifierGenerator.MAX_LONG_NUMERIC_VALUE_LENGTH;
 	}
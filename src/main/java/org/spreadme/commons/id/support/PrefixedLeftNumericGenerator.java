@@ -31,6 +31,8 @@ public class PrefixedLeftNumericGenerator extends AbstractStringIdentifierGenera
 	/** The counter. */
 	private char[] count;
 
+	private GeneratorStatistics statistics;
+
 	/** '9' char. */
 	private static final char NINE_CHAR = '9';
 
@@ -80,11 +82,45 @@ public class PrefixedLeftNumericGenerator extends AbstractStringIdentifierGenera
 		this.wrap = wrap;
 	}
 
+	public GeneratorStatistics getStatistics() {
+		return statistics;
+	}
+
+	/**
+	 * Enables the contention statistics of this generator, null disables it.
+	 *
+	 * @param statistics generator statistics
+	 */
+	public void setStatistics(GeneratorStatistics statistics) {
+		this.statistics = statistics;
+	}
+
+	/**
+	 * Decodes the counter value of an identifier from this generator.
+	 *
+	 * @param id identifier
+	 * @return the counter value
+	 */
+	public long getValueFromId(final CharSequence id) {
+		if (id == null || id.length() != getSize()) {
+			throw new IllegalArgumentException("'" + id + "' is not an id from this generator");
+		}
+		for (int i = 0; i < prefix.length(); i++) {
+			if (id.charAt(i) != prefix.charAt(i)) {
+				throw new IllegalArgumentException("'" + id + "' is not an id from this generator");
+			}
+		}
+		return parseDigits(id, prefix.length(), id.length(), 10);
+	}
+
 	public String nextStringIdentifier() {
 		for (int i = count.length - 1; i >= 0; i--) {
 			if (count[i] == NINE_CHAR) {
 				count[i] = '0';
 				if (i == 0 && !wrap) {
+					if (statistics != null) {
+						statistics.recordExhausted(0L);
+					}
 					throw new IllegalStateException("The maximum number of identifiers has been reached");
 				}
 			}
@@ -94,6 +130,9 @@ public class PrefixedLeftNumericGenerator extends AbstractStringIdentifierGenera
 			}
 		}
 
+		if (statistics != null) {
+			statistics.recordGenerated();
+		}
 		return prefix + String.valueOf(count);
 	}
 }
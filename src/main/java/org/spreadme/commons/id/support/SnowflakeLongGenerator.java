@@ -26,25 +26,36 @@ public class SnowflakeLongGenerator extends AbstractLongIdentifierGenerator impl
 
 	private static final long serialVersionUID = 6732219234356477774L;
 
-	private long sequence = 0L;
+	private static final long WORKER_ID_BITS = 5L; // 节点ID长度
+
+	private static final long DATACENTER_ID_BITS = 5L; // 数据中心ID长度
+
+	private static final long SEQUENCE_BITS = 12L; // 序列号12位
+
+	private static final long WORKER_ID_SHIFT = SEQUENCE_BITS; // 机器节点左移12位
 
-	private long workerIdBits = 5L; // 节点ID长度
+	private static final long DATACENTER_ID_SHIFT = SEQUENCE_BITS + WORKER_ID_BITS; // 数据中心节点左移17位
 
-	private long datacenterIdBits = 5L; // 数据中心ID长度
+	private static final long TIMESTAMP_LEFT_SHIFT = SEQUENCE_BITS + WORKER_ID_BITS + DATACENTER_ID_BITS; // 时间毫秒数左移22位
 
-	private long sequenceBits = 12L; // 序列号12位
+	private static final long SEQUENCE_MASK = ~(-1L << SEQUENCE_BITS); // 4095
 
-	private long workerIdShift = sequenceBits; // 机器节点左移12位
+	private static final long INCREMENT_BITS = 10L; // 默认自增10位
 
-	private long datacenterIdShift = sequenceBits + workerIdBits; // 数据中心节点左移17位
+	private static final long INCREMENT_MASK = ~(-1L << INCREMENT_BITS); // 1024，自增到1024时从0重新开始自增
 
-	private long timestampLeftShift = sequenceBits + workerIdBits + datacenterIdBits; // 时间毫秒数左移22位
+	private static final long LOW_BITS_MASK = ~(-1L << TIMESTAMP_LEFT_SHIFT); // 数据中心、机器节点及序列号所占的低22位
 
-	private long sequenceMask = ~(-1L << sequenceBits); // 4095
+	// 时间纪元 2000-01-01 00:00 00
+	private static final long EPOCH = 30 * 365 * 24 * 3600000L;
 
-	private long incrementBits = 10L; // 默认自增10位
+	/** 最大支持机器节点数0~31 */
+	public static final long MAX_WORKER_ID = ~(-1L << WORKER_ID_BITS);
 
-	private long incrementMask = ~(-1L << incrementBits); // 1024，自增到1024时从0重新开始自增
+	/** 最大支持数据中心节点数0~31 */
+	public static final long MAX_DATACENTER_ID = ~(-1L << DATACENTER_ID_BITS);
+
+	private long sequence = 0L;
 
 	private long lastTimestamp = -1L;
 
@@ -52,52 +63,151 @@ public class SnowflakeLongGenerator extends AbstractLongIdentifierGenerator impl
 
 	private long datacenterId;// 支持数据中心节点数0~31，最多32个
 
+	private transient GeneratorStatistics statistics;// 为null时不做统计
+
+	private transient WorkerIdAllocator allocator;// 租用的机器节点ID，租约丢失后停止生成
+
 	public SnowflakeLongGenerator(final int workId, final int datacenter) {
 		long workerId = (long) workId;
 		// 最大支持机器节点数0~31，一共32个
-		long maxWorkerId = ~(-1L << workerIdBits);
-		if (workerId > maxWorkerId || workerId < 0) {
-			throw new IllegalArgumentException(String.format("worker Id can't be greater than %d or less than 0", maxWorkerId));
+		if (workerId > MAX_WORKER_ID || workerId < 0) {
+			throw new IllegalArgumentException(String.format("worker Id can't be greater than %d or less than 0", MAX_WORKER_ID));
 		}
 		long datacenterId = (long) datacenter;
 		// 最大支持数据中心节点数0~31，一共32个
-		long maxDatacenterId = ~(-1L << datacenterIdBits);
-		if (datacenterId > maxDatacenterId || datacenterId < 0) {
-			throw new IllegalArgumentException(String.format("datacenter Id can't be greater than %d or less than 0", maxDatacenterId));
+		if (datacenterId > MAX_DATACENTER_ID || datacenterId < 0) {
+			throw new IllegalArgumentException(String.format("datacenter Id can't be greater than %d or less than 0", MAX_DATACENTER_ID));
 		}
 		this.workerId = workerId;
 		this.datacenterId = datacenterId;
 	}
 
+	/**
+	 * 通过{@link WorkerIdAllocator}自动租用机器节点ID, 租约丢失后{@link #nextId()}抛出{@link IllegalStateException}
+	 *
+	 * @param allocator worker id allocator
+	 * @param datacenter datacenter id
+	 */
+	public SnowflakeLongGenerator(final WorkerIdAllocator allocator, final int datacenter) {
+		this((int) allocator.allocate(), datacenter);
+		this.allocator = allocator;
+	}
+
 	public synchronized long nextId() {
+		// 租约丢失后其他节点可能已租用相同的机器节点ID，继续生成会产生重复ID
+		if (allocator != null && !allocator.isLeased()) {
+			throw new IllegalStateException(String.format(
+					"Worker id %d lease lost.  Refusing to generate id", workerId));
+		}
 		// 获取当前毫秒数
 		long timestamp = timeGen();
 		// 如果服务器时间有问题(时钟后退) 报错。
 		if (timestamp < lastTimestamp) {
+			if (statistics != null) {
+				statistics.recordClockRegression();
+			}
 			throw new RuntimeException(String.format(
 					"Clock moved backwards.  Refusing to generate id for %d milliseconds", lastTimestamp - timestamp));
 		}
 		// 如果上次生成时间和当前时间相同,在同一毫秒内
 		if (lastTimestamp == timestamp) {
 			// sequence自增，因为sequence只有12bit，所以和sequenceMask相与一下，去掉高位
-			sequence = (sequence + 1) & sequenceMask;
+			sequence = (sequence + 1) & SEQUENCE_MASK;
 			// 判断是否溢出,也就是每毫秒内超过4095，当为4096时，与sequenceMask相与，sequence就等于0
 			if (sequence == 0) {
+				long spinStart = statistics != null ? System.nanoTime() : 0L;
 				timestamp = tilNextMillis(lastTimestamp); // 自旋等待到下一毫秒
+				if (statistics != null) {
+					statistics.recordExhausted(System.nanoTime() - spinStart);
+				}
 			}
 		}
 		else {
 			// 如果和上次生成时间不同,自增sequence，到incrementMask（1024）时，sequence计数重新从0开始累加
-			sequence = (sequence + 1) & incrementMask;
+			sequence = (sequence + 1) & INCREMENT_MASK;
 		}
 		lastTimestamp = timestamp;
+		if (statistics != null) {
+			statistics.recordGenerated();
+		}
 		// 最后按照规则拼出ID。
 		// 000000000000000000000000000000000000000000 00000 00000 000000000000
 		// time datacenterId workerId sequence
-		// 时间纪元 2000-01-01 00:00 00
-		long epoch = 30 * 365 * 24 * 3600000L;
-		return ((timestamp - epoch) << timestampLeftShift) | (datacenterId << datacenterIdShift)
-				| (workerId << workerIdShift) | sequence;
+		return ((timestamp - EPOCH) << TIMESTAMP_LEFT_SHIFT) | (datacenterId << DATACENTER_ID_SHIFT)
+				| (workerId << WORKER_ID_SHIFT) | sequence;
+	}
+
+	public GeneratorStatistics getStatistics() {
+		return statistics;
+	}
+
+	/**
+	 * 开启统计, 传入null时关闭
+	 *
+	 * @param statistics generator statistics
+	 */
+	public void setStatistics(GeneratorStatistics statistics) {
+		this.statistics = statistics;
+	}
+
+	/**
+	 * 解析ID中的生成时间
+	 *
+	 * @param id snowflake id
+	 * @return 生成ID时的毫秒数
+	 */
+	public static long getTimestamp(long id) {
+		return (id >>> TIMESTAMP_LEFT_SHIFT) + EPOCH;
+	}
+
+	/**
+	 * 解析ID中的数据中心节点
+	 *
+	 * @param id snowflake id
+	 * @return datacenter id
+	 */
+	public static long getDatacenterId(long id) {
+		return (id >>> DATACENTER_ID_SHIFT) & MAX_DATACENTER_ID;
+	}
+
+	/**
+	 * 解析ID中的机器节点
+	 *
+	 * @param id snowflake id
+	 * @return worker id
+	 */
+	public static long getWorkerId(long id) {
+		return (id >>> WORKER_ID_SHIFT) & MAX_WORKER_ID;
+	}
+
+	/**
+	 * 解析ID中的序列号
+	 *
+	 * @param id snowflake id
+	 * @return sequence
+	 */
+	public static long getSequence(long id) {
+		return id & SEQUENCE_MASK;
+	}
+
+	/**
+	 * 指定毫秒内可能生成的最小ID, 用于将时间范围转换为ID范围
+	 *
+	 * @param timestamp 毫秒数
+	 * @return 该毫秒内的最小ID
+	 */
+	public static long minIdOf(long timestamp) {
+		return (timestamp - EPOCH) << TIMESTAMP_LEFT_SHIFT;
+	}
+
+	/**
+	 * 指定毫秒内可能生成的最大ID, 用于将时间范围转换为ID范围
+	 *
+	 * @param timestamp 毫秒数
+	 * @return 该毫秒内的最大ID
+	 */
+	public static long maxIdOf(long timestamp) {
+		return minIdOf(timestamp) | LOW_BITS_MASK;
 	}
 
 	private long tilNextMillis(long lastTime) {
@@ -46,6 +46,8 @@ public class TimeBasedIdentifierGenerator extends AbstractStringIdentifierGenera
 
 	private final long offset;
 
+	private transient GeneratorStatistics statistics;
+
 	public TimeBasedIdentifierGenerator(final int postfixSize, final long offset) {
 		if (postfixSize < 0 || postfixSize > MAX_LONG_ALPHANUMERIC_VALUE_LENGTH) {
 			throw new IllegalArgumentException("Invalid size for postfix");
@@ -75,51 +77,97 @@ public class TimeBasedIdentifierGenerator extends AbstractStringIdentifierGenera
 			else {
 				if (diff != 0) {
 					now = last; // ignore time shift
+					if (statistics != null) {
+						statistics.recordClockRegression();
+					}
 				}
 				++counter;
 			}
 		}
 		final String postfix = counter > 0 ? Long.toString(counter, ALPHA_NUMERIC_CHARSET_SIZE) : "";
 		if (postfix.length() > postfixSize) {
+			if (statistics != null) {
+				statistics.recordExhausted(0L);
+			}
 			throw new IllegalStateException("The maximum number of identifiers in this millisecond has been reached");
 		}
-		long base = now - offset;
-		long value = base < 0 ? base + Long.MAX_VALUE + 1 : base;
-		final String time = Long.toString(value, ALPHA_NUMERIC_CHARSET_SIZE);
 		final char[] buffer = new char[MAX_LONG_ALPHANUMERIC_VALUE_LENGTH + postfixSize];
-		int i = 0;
-		int maxPad = MAX_LONG_ALPHANUMERIC_VALUE_LENGTH - time.length();
-		if (maxPad > 0) {
-			System.arraycopy(padding, 0, buffer, 0, maxPad);
-		}
-		System.arraycopy(time.toCharArray(), 0, buffer, maxPad, time.length());
-		if (base < 0) {
-			// Representation of Long.MAX_VALUE starts with '1', negative 'base' means higher value
-			// in time
-			buffer[0] += 2;
-		}
-		i += time.length() + maxPad;
+		int i = fillTime(buffer, now);
 		if (postfixSize > 0) {
-			maxPad = postfixSize - postfix.length();
+			int maxPad = postfixSize - postfix.length();
 			if (maxPad > 0) {
 				System.arraycopy(padding, 0, buffer, i, maxPad);
 				i += maxPad;
 			}
 			System.arraycopy(postfix.toCharArray(), 0, buffer, i, postfix.length());
 		}
+		if (statistics != null) {
+			statistics.recordGenerated();
+		}
+		return new String(buffer);
+	}
+
+	public GeneratorStatistics getStatistics() {
+		return statistics;
+	}
+
+	/**
+	 * Enables the contention statistics of this generator, null disables it.
+	 *
+	 * @param statistics generator statistics
+	 */
+	public void setStatistics(GeneratorStatistics statistics) {
+		this.statistics = statistics;
+	}
+
+	/**
+	 * The smallest identifier this generator could produce in the given millisecond,
+	 * used to translate a time range into an identifier range.
+	 *
+	 * @param milliseconds milliseconds
+	 * @return the smallest identifier of the millisecond
+	 */
+	public String minIdentifierOf(final long milliseconds) {
+		final char[] buffer = new char[MAX_LONG_ALPHANUMERIC_VALUE_LENGTH + postfixSize];
+		int i = fillTime(buffer, milliseconds);
+		Arrays.fill(buffer, i, buffer.length, '0');
 		return new String(buffer);
 	}
 
+	/**
+	 * The largest identifier this generator could produce in the given millisecond,
+	 * used to translate a time range into an identifier range.
+	 *
+	 * @param milliseconds milliseconds
+	 * @return the largest identifier of the millisecond
+	 */
+	public String maxIdentifierOf(final long milliseconds) {
+		final char[] buffer = new char[MAX_LONG_ALPHANUMERIC_VALUE_LENGTH + postfixSize];
+		int i = fillTime(buffer, milliseconds);
+		Arrays.fill(buffer, i, buffer.length, Character.forDigit(ALPHA_NUMERIC_CHARSET_SIZE - 1, ALPHA_NUMERIC_CHARSET_SIZE));
+		return new String(buffer);
+	}
+
+	public long getMillisecondsFromId(final CharSequence id) {
+		return getMillisecondsFromId(id, this.offset);
+	}
+
 	public long getMillisecondsFromId(final Object id, final long offset) {
-		if (id instanceof String && id.toString().length() >= MAX_LONG_ALPHANUMERIC_VALUE_LENGTH) {
-			final char[] buffer = new char[MAX_LONG_ALPHANUMERIC_VALUE_LENGTH];
-			System.arraycopy(
-					id.toString().toCharArray(), 0, buffer, 0, MAX_LONG_ALPHANUMERIC_VALUE_LENGTH);
-			final boolean overflow = buffer[0] > '1';
-			if (overflow) {
-				buffer[0] -= 2;
+		if (id instanceof CharSequence && ((CharSequence) id).length() >= MAX_LONG_ALPHANUMERIC_VALUE_LENGTH) {
+			final CharSequence chars = (CharSequence) id;
+			// Representation of Long.MAX_VALUE starts with '1', a higher first digit means a negative 'base'
+			final boolean overflow = chars.charAt(0) > '1';
+			long value = 0;
+			for (int i = 0; i < MAX_LONG_ALPHANUMERIC_VALUE_LENGTH; i++) {
+				int digit = Character.digit(chars.charAt(i), ALPHA_NUMERIC_CHARSET_SIZE);
+				if (i == 0 && overflow) {
+					digit -= 2;
+				}
+				if (digit < 0) {
+					throw new IllegalArgumentException("'" + id + "' is not an id from this generator");
+				}
+				value = value * ALPHA_NUMERIC_CHARSET_SIZE + digit;
 			}
-			long value = Long.parseLong(new String(buffer), ALPHA_NUMERIC_CHARSET_SIZE);
 			if (overflow) {
 				value -= Long.MAX_VALUE + 1;
 			}
@@ -128,6 +176,36 @@ public class TimeBasedIdentifierGenerator extends AbstractStringIdentifierGenera
 		throw new IllegalArgumentException("'" + id + "' is not an id from this generator");
 	}
 
+	/**
+	 * Decodes the counter within the millisecond of an identifier.
+	 *
+	 * @param id identifier from this generator
+	 * @return the counter of the identifier
+	 */
+	public long getCounterFromId(final CharSequence id) {
+		if (id == null || id.length() != MAX_LONG_ALPHANUMERIC_VALUE_LENGTH + postfixSize) {
+			throw new IllegalArgumentException("'" + id + "' is not an id from this generator");
+		}
+		return parseDigits(id, MAX_LONG_ALPHANUMERIC_VALUE_LENGTH, id.length(), ALPHA_NUMERIC_CHARSET_SIZE);
+	}
+
+	private int fillTime(final char[] buffer, final long now) {
+		long base = now - offset;
+		long value = base < 0 ? base + Long.MAX_VALUE + 1 : base;
+		final String time = Long.toString(value, ALPHA_NUMERIC_CHARSET_SIZE);
+		int maxPad = MAX_LONG_ALPHANUMERIC_VALUE_LENGTH - time.length();
+		if (maxPad > 0) {
+			System.arraycopy(padding, 0, buffer, 0, maxPad);
+		}
+		time.getChars(0, time.length(), buffer, maxPad);
+		if (base < 0) {
+			// Representation of Long.MAX_VALUE starts with '1', negative 'base' means higher value
+			// in time
+			buffer[0] += 2;
+		}
+		return time.length() + maxPad;
+	}
+
 	public long maxLength() {
 		return MAX_LONG_ALPHANUMERIC_VALUE_LENGTH + postfixSize;
 	}
@@ -29,8 +29,26 @@ public class UUIDGenerator implements IdentifierGenerator<UUID> {
 
 	private static final long serialVersionUID = -7456823675132108898L;
 
+	private GeneratorStatistics statistics;
+
 	@Override
 	public UUID nextIdentifier() {
+		if (statistics != null) {
+			statistics.recordGenerated();
+		}
 		return new UUID(Randoms.nextLong(), Randoms.nextLong());
 	}
+
+	public GeneratorStatistics getStatistics() {
+		return statistics;
+	}
+
+	/**
+	 * Enables the contention statistics of this generator, null disables it.
+	 *
+	 * @param statistics generator statistics
+	 */
+	public void setStatistics(GeneratorStatistics statistics) {
+		this.statistics = statistics;
+	}
 }
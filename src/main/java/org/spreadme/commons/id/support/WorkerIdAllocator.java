@@ -0,0 +1,147 @@
+/*
+ *    Copyright [2019] [shuwei.wang (c) wswill@foxmail.com]
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package org.spreadme.commons.id.support;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.spreadme.commons.id.WorkerIdLeaseStore;
+import org.spreadme.commons.lang.Assert;
+
+/**
+ * Worker Id Allocator
+ * <p>Leases the first free worker id from a {@link WorkerIdLeaseStore} and keeps renewing it
+ * from a heartbeat thread. Closing the allocator releases the lease and closes the store.</p>
+ * <pre>
+ * WorkerIdAllocator allocator = new WorkerIdAllocator(new FileLockWorkerIdLeaseStore(dir));
+ * SnowflakeLongGenerator generator = new SnowflakeLongGenerator(allocator, 1);
+ * </pre>
+ * @author shuwei.wang
+ */
+public class WorkerIdAllocator implements Closeable {
+
+	private static final long DEFAULT_HEARTBEAT_MILLIS = 10 * 1000L;
+
+	private static final long UNALLOCATED = -1L;
+
+	private final WorkerIdLeaseStore store;
+
+	private final long maxWorkerId;
+
+	private final long heartbeatMillis;
+
+	private ScheduledExecutorService heartbeat;
+
+	private volatile long workerId = UNALLOCATED;
+
+	private volatile boolean leased = false;
+
+	public WorkerIdAllocator(WorkerIdLeaseStore store) {
+		this(store, SnowflakeLongGenerator.MAX_WORKER_ID, DEFAULT_HEARTBEAT_MILLIS);
+	}
+
+	public WorkerIdAllocator(WorkerIdLeaseStore store, long maxWorkerId, long heartbeatMillis) {
+		Assert.notNull(store, "worker id lease store must not be null");
+		Assert.isTrue(maxWorkerId >= 0, "max worker id must not be less than 0");
+		Assert.isTrue(heartbeatMillis > 0, "heartbeat interval must be greater than 0");
+		this.store = store;
+		this.maxWorkerId = maxWorkerId;
+		this.heartbeatMillis = heartbeatMillis;
+	}
+
+	/**
+	 * Leases a free worker id, repeated calls return the same worker id.
+	 *
+	 * @return worker id
+	 * @throws IllegalStateException if every worker id is taken
+	 */
+	public synchronized long allocate() {
+		if (this.workerId != UNALLOCATED) {
+			return this.workerId;
+		}
+		try {
+			for (long id = 0; id <= maxWorkerId; id++) {
+				if (store.tryLease(id)) {
+					this.workerId = id;
+					this.leased = true;
+					startHeartbeat();
+					return id;
+				}
+			}
+		}
+		catch (IOException ex) {
+			throw new IllegalStateException("Unable to lease worker id: " + ex.getMessage(), ex);
+		}
+		throw new IllegalStateException(String.format("No free worker id between 0 and %d", maxWorkerId));
+	}
+
+	/**
+	 * Returns the leased worker id, or -1 if nothing has been allocated.
+	 *
+	 * @return worker id
+	 */
+	public long getWorkerId() {
+		return workerId;
+	}
+
+	/**
+	 * Returns whether the last heartbeat renewed the lease.
+	 *
+	 * @return is the lease still held
+	 */
+	public boolean isLeased() {
+		return leased;
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+		if (heartbeat != null) {
+			heartbeat.shutdownNow();
+			heartbeat = null;
+		}
+		try {
+			if (workerId != UNALLOCATED) {
+				store.release(workerId);
+			}
+		}
+		finally {
+			workerId = UNALLOCATED;
+			leased = false;
+			store.close();
+		}
+	}
+
+	private void startHeartbeat() {
+		final long leasedId = this.workerId;
+		heartbeat = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread thread = new Thread(r, "worker-id-heartbeat-" + leasedId);
+			thread.setDaemon(true);
+			return thread;
+		});
+		heartbeat.scheduleWithFixedDelay(() -> {
+			try {
+				leased = store.renew(leasedId);
+			}
+			catch (IOException ex) {
+				leased = false;
+			}
+		}, heartbeatMillis, heartbeatMillis, TimeUnit.MILLISECONDS);
+	}
+}
@@ -0,0 +1,383 @@
+/*
+ *    Copyright [2019] [shuwei.wang (c) wswill@foxmail.com]
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package org.spreadme.commons.io;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.spreadme.commons.codec.Hex;
+import org.spreadme.commons.digest.Digest;
+
+/**
+ * Content addressed blob store
+ * <p>Every blob is stored once under the hex SHA-256 of its content, sharded by the first two
+ * bytes of the hash: {@code objects/ab/cd/abcd...}. Writes stream into a temp file while hashing,
+ * then the temp file is atomically renamed into place, so a blob is either complete or absent
+ * and storing the same content again only bumps its reference count.</p>
+ * <p>Reference counts live next to the blobs in {@code .refs} files. {@link #release(String)} never
+ * deletes, unreferenced blobs and temp files of interrupted writes are removed by {@link #gc()}. Updates of the same hash are
+ * serialized within one store instance, a store directory must not be shared by several processes.</p>
+ * <pre>
+ * BlobStore store = new BlobStore(Paths.get("/data/blobs"));
+ * String hash = store.put(upload);
+ * MappedByteBuffer content = store.map(hash);
+ * store.release(hash);
+ * store.gc();
+ * </pre>
+ * @author shuwei.wang
+ * @since 1.0.0
+ */
+public class BlobStore {
+
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	private static final int HASH_LENGTH = 64;
+
+	private static final int LOCK_STRIPES = 64;
+
+	private static final String REFS_SUFFIX = ".refs";
+
+	private static final String TEMP_SUFFIX = ".tmp";
+
+	private final Path objects;
+
+	private final Path temp;
+
+	private final Object[] locks = new Object[LOCK_STRIPES];
+
+	private final Set<Path> pending = ConcurrentHashMap.newKeySet();
+
+	/**
+	 * Create a blob store, the directories are created if necessary
+	 *
+	 * @param root the store directory
+	 * @throws IOException IOException
+	 */
+	public BlobStore(Path root) throws IOException {
+		this.objects = Files.createDirectories(root.resolve("objects"));
+		this.temp = Files.createDirectories(root.resolve("tmp"));
+		for (int i = 0; i < locks.length; i++) {
+			locks[i] = new Object();
+		}
+	}
+
+	public String put(byte[] data) throws IOException {
+		return put(new ByteArrayInputStream(data));
+	}
+
+	/**
+	 * Store the file content
+	 *
+	 * @param file the file
+	 * @return the hex SHA-256 of the content
+	 * @throws IOException IOException
+	 */
+	public String put(Path file) throws IOException {
+		try (InputStream in = Files.newInputStream(file)) {
+			return put(in);
+		}
+	}
+
+	/**
+	 * Store the content of the input stream and increment its reference count, the stream is read
+	 * to the end but not closed
+	 *
+	 * @param in the content
+	 * @return the hex SHA-256 of the content
+	 * @throws IOException IOException
+	 */
+	public String put(InputStream in) throws IOException {
+		Path tempFile = createTempFile("blob");
+		try {
+			String hash;
+			try (FileChannel channel = FileChannel.open(tempFile, StandardOpenOption.WRITE)) {
+				MessageDigest digest = Digest.getMessageDigest(Digest.Algorithm.SHA256);
+				byte[] buffer = new byte[BUFFER_SIZE];
+				int n;
+				while ((n = in.read(buffer)) != -1) {
+					digest.update(buffer, 0, n);
+					ByteBuffer src = ByteBuffer.wrap(buffer, 0, n);
+					while (src.hasRemaining()) {
+						channel.write(src);
+					}
+				}
+				channel.force(false);
+				hash = Hex.toHexString(digest.digest());
+			}
+			Path blob = getBlobPath(hash);
+			synchronized (lock(hash)) {
+				if (!Files.exists(blob)) {
+					Files.createDirectories(blob.getParent());
+					move(tempFile, blob);
+				}
+				writeRefs(hash, readRefs(hash) + 1);
+			}
+			return hash;
+		}
+		finally {
+			deleteTempFile(tempFile);
+		}
+	}
+
+	public boolean contains(String hash) {
+		return Files.exists(getBlobPath(hash));
+	}
+
+	/**
+	 * @param hash the hex SHA-256
+	 * @return the blob size
+	 * @throws IOException if the blob does not exist
+	 */
+	public long size(String hash) throws IOException {
+		return Files.size(getBlobPath(hash));
+	}
+
+	/**
+	 * Open the blob as a stream
+	 *
+	 * @param hash the hex SHA-256
+	 * @return the blob content
+	 * @throws IOException if the blob does not exist
+	 */
+	public InputStream open(String hash) throws IOException {
+		return Files.newInputStream(getBlobPath(hash));
+	}
+
+	/**
+	 * Map the blob read only into memory, the mapping stays valid after the channel is closed.
+	 * Blobs are limited to 2GB by {@link MappedByteBuffer}, use {@link #open(String)} for larger ones.
+	 *
+	 * @param hash the hex SHA-256
+	 * @return the blob content
+	 * @throws IOException if the blob does not exist
+	 */
+	public MappedByteBuffer map(String hash) throws IOException {
+		try (FileChannel channel = FileChannel.open(getBlobPath(hash), StandardOpenOption.READ)) {
+			return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		}
+	}
+
+	/**
+	 * Increment the reference count of an existing blob
+	 *
+	 * @param hash the hex SHA-256
+	 * @return the new reference count
+	 * @throws IOException if the blob does not exist
+	 */
+	public long retain(String hash) throws IOException {
+		synchronized (lock(hash)) {
+			if (!contains(hash)) {
+				throw new NoSuchFileException(getBlobPath(hash).toString());
+			}
+			long refs = readRefs(hash) + 1;
+			writeRefs(hash, refs);
+			return refs;
+		}
+	}
+
+	/**
+	 * Decrement the reference count, a blob that is no longer referenced is kept until {@link #gc()}
+	 *
+	 * @param hash the hex SHA-256
+	 * @return the new reference count
+	 * @throws IOException IOException
+	 */
+	public long release(String hash) throws IOException {
+		synchronized (lock(hash)) {
+			long refs = readRefs(hash);
+			if (refs == 0) {
+				throw new IllegalStateException("blob " + hash + " is not referenced");
+			}
+			writeRefs(hash, --refs);
+			return refs;
+		}
+	}
+
+	public long getRefs(String hash) throws IOException {
+		synchronized (lock(hash)) {
+			return readRefs(hash);
+		}
+	}
+
+	/**
+	 * Delete the blobs whose reference count is 0, and the temp files left behind by interrupted writes
+	 *
+	 * @return the number of deleted blobs
+	 * @throws IOException IOException
+	 */
+	public int gc() throws IOException {
+		try (DirectoryStream<Path> tempFiles = Files.newDirectoryStream(temp, "*" + TEMP_SUFFIX)) {
+			for (Path tempFile : tempFiles) {
+				// temp files of writes still running in this store are kept
+				if (!pending.contains(tempFile)) {
+					Files.deleteIfExists(tempFile);
+				}
+			}
+		}
+		int deleted = 0;
+		try (DirectoryStream<Path> firsts = Files.newDirectoryStream(objects)) {
+			for (Path first : firsts) {
+				try (DirectoryStream<Path> seconds = Files.newDirectoryStream(first)) {
+					for (Path second : seconds) {
+						try (DirectoryStream<Path> blobs = Files.newDirectoryStream(second)) {
+							for (Path blob : blobs) {
+								String hash = blob.getFileName().toString();
+								if (isHash(hash) && sweep(hash)) {
+									deleted++;
+								}
+							}
+						}
+					}
+				}
+			}
+		}
+		return deleted;
+	}
+
+	private boolean sweep(String hash) throws IOException {
+		synchronized (lock(hash)) {
+			if (readRefs(hash) > 0) {
+				return false;
+			}
+			Path blob = getBlobPath(hash);
+			Files.deleteIfExists(getRefsPath(hash));
+			return Files.deleteIfExists(blob);
+		}
+	}
+
+	private Path getBlobPath(String hash) {
+		if (!isHash(hash)) {
+			throw new IllegalArgumentException("invalid blob hash: " + hash);
+		}
+		return objects.resolve(hash.substring(0, 2)).resolve(hash.substring(2, 4)).resolve(hash);
+	}
+
+	private Path getRefsPath(String hash) {
+		Path blob = getBlobPath(hash);
+		return blob.resolveSibling(hash + REFS_SUFFIX);
+	}
+
+	private long readRefs(String hash) throws IOException {
+		Path refs = getRefsPath(hash);
+		if (!Files.exists(refs)) {
+			return 0;
+		}
+		String content = new String(Files.readAllBytes(refs), StandardCharsets.US_ASCII).trim();
+		try {
+			long count = Long.parseLong(content);
+			if (count >= 0) {
+				return count;
+			}
+		}
+		catch (NumberFormatException ignore) {
+			// reported below
+		}
+		throw new IOException("corrupted reference count file " + refs + ": '" + content + "'");
+	}
+
+	private void writeRefs(String hash, long refs) throws IOException {
+		Path tempFile = createTempFile("refs");
+		try {
+			try (FileChannel channel = FileChannel.open(tempFile, StandardOpenOption.WRITE)) {
+				ByteBuffer src = ByteBuffer.wrap(Long.toString(refs).getBytes(StandardCharsets.US_ASCII));
+				while (src.hasRemaining()) {
+					channel.write(src);
+				}
+				// the count must be durable before the rename, a crash must not leave an empty refs file
+				channel.force(true);
+			}
+			move(tempFile, getRefsPath(hash));
+		}
+		finally {
+			deleteTempFile(tempFile);
+		}
+	}
+
+	/**
+	 * the temp file is registered as pending before it is created, so {@link #gc()} never deletes it
+	 */
+	private Path createTempFile(String prefix) throws IOException {
+		while (true) {
+			Path tempFile = temp.resolve(prefix + Long.toHexString(ThreadLocalRandom.current().nextLong()) + TEMP_SUFFIX);
+			if (pending.add(tempFile)) {
+				try {
+					return Files.createFile(tempFile);
+				}
+				catch (FileAlreadyExistsException e) {
+					pending.remove(tempFile);
+				}
+				catch (IOException | RuntimeException e) {
+					pending.remove(tempFile);
+					throw e;
+				}
+			}
+		}
+	}
+
+	private void deleteTempFile(Path tempFile) throws IOException {
+		try {
+			Files.deleteIfExists(tempFile);
+		}
+		finally {
+			pending.remove(tempFile);
+		}
+	}
+
+	private static void move(Path source, Path target) throws IOException {
+		try {
+			Files.move(source, target, StandardCopyOption.ATOMIC_MOVE);
+		}
+		catch (AtomicMoveNotSupportedException e) {
+			Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+
+	private Object lock(String hash) {
+		return locks[(hash.hashCode() & Integer.MAX_VALUE) % LOCK_STRIPES];
+	}
+
+	private static boolean isHash(String hash) {
+		if (hash == null || hash.length() != HASH_LENGTH) {
+			return false;
+		}
+		for (int i = 0; i < HASH_LENGTH; i++) {
+			char c = hash.charAt(i);
+			if ((c < '0' || c > '9') && (c < 'a' || c > 'f')) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
@@ -0,0 +1,44 @@
+/*
+ *    Copyright [2019] [shuwei.wang (c) wswill@foxmail.com]
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package org.spreadme.commons.io;
+
+/**
+ * A source of reusable byte arrays
+ * <p>{@link #acquire(int)} may return a larger array than requested and a recycled array is not
+ * zeroed. An array must be released at most once and must not be used after it was released.</p>
+ * @author shuwei.wang
+ * @since 1.0.0
+ * @see RecyclingBufferPool
+ */
+public interface BufferPool {
+
+	/**
+	 * Borrow an array of at least the given length
+	 *
+	 * @param minCapacity the minimum length
+	 * @return an array whose length is at least minCapacity
+	 */
+	byte[] acquire(int minCapacity);
+
+	/**
+	 * Give an array acquired from this pool back
+	 *
+	 * @param buffer the array
+	 */
+	void release(byte[] buffer);
+}
@@ -0,0 +1,441 @@
+/*
+ *    Copyright [2019] [shuwei.wang (c) wswill@foxmail.com]
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package org.spreadme.commons.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.spreadme.commons.lang.Assert;
+
+/**
+ * A variant of {@link FastByteArrayOutputStream} backed by {@link ByteBuffer} blocks
+ *
+ * <p>The blocks are kept in an array with the block being written cached in a field, so a write
+ * does not walk a list, and the {@link InputStream} of the contents reads block by block in a loop.
+ * Block sizes double like those of {@code FastByteArrayOutputStream}.
+ *
+ * <p>Heap blocks may be borrowed from a {@link BufferPool}. A stream created with {@link #direct(int)}
+ * uses direct blocks of at most 1MB from a bounded shared pool, so {@link #writeTo(WritableByteChannel)}
+ * hands them to the channel without an intermediate copy. {@code writeTo(WritableByteChannel)} is a single
+ * gathering write of all blocks when the channel is a {@link GatheringByteChannel}.
+ *
+ * <p>Pooled blocks are given back on {@link #reset()} and {@link #close()}, the contents must be
+ * extracted before closing such a stream.
+ * @author shuwei.wang
+ * @since 1.0.0
+ */
+public class ByteBlockOutputStream extends OutputStream {
+
+	private static final int DEFAULT_BLOCK_SIZE = 256;
+
+	// direct blocks are at least a page
+	private static final int MIN_DIRECT_BLOCK_SIZE = 4 * 1024;
+
+	// direct blocks stop doubling at the largest pooled class, native memory is only freed by the GC
+	private static final int MAX_DIRECT_BLOCK_SIZE = 1 << DirectBlockPool.MAX_SHIFT;
+
+	private static final DirectBlockPool DIRECT_POOL = new DirectBlockPool();
+
+	private static final int TRANSFER_SIZE = 8 * 1024;
+
+	private final BufferPool pool;
+
+	private final boolean direct;
+
+	private ByteBuffer[] blocks = new ByteBuffer[8];
+
+	private int blockCount = 0;
+
+	// The block written next, blocks[blockCount - 1]. Its position is the write index
+	private ByteBuffer tail;
+
+	// The number of bytes in the blocks before the tail
+	private int alreadyBufferedSize = 0;
+
+	private final int initialBlockSize;
+
+	private int nextBlockSize;
+
+	private boolean closed = false;
+
+	public ByteBlockOutputStream() {
+		this(DEFAULT_BLOCK_SIZE, null);
+	}
+
+	/**
+	 * Create a stream with heap blocks
+	 *
+	 * @param initialBlockSize the size of the first block
+	 * @param pool the pool the blocks are borrowed from, null to allocate them
+	 */
+	public ByteBlockOutputStream(int initialBlockSize, BufferPool pool) {
+		this(initialBlockSize, pool, false);
+	}
+
+	private ByteBlockOutputStream(int initialBlockSize, BufferPool pool, boolean direct) {
+		Assert.isTrue(initialBlockSize > 0, "Initial block size must be greater than 0");
+		this.initialBlockSize = initialBlockSize;
+		this.nextBlockSize = initialBlockSize;
+		this.pool = pool;
+		this.direct = direct;
+	}
+
+	/**
+	 * Create a stream with pooled direct blocks, it should be closed to give the blocks back
+	 *
+	 * @param initialBlockSize the size of the first block, at least 4KB is used
+	 * @return ByteBlockOutputStream
+	 */
+	public static ByteBlockOutputStream direct(int initialBlockSize) {
+		return new ByteBlockOutputStream(Math.max(initialBlockSize, MIN_DIRECT_BLOCK_SIZE), null, true);
+	}
+
+	@Override
+	public void write(int datum) throws IOException {
+		ensureOpen();
+		if (this.tail == null || !this.tail.hasRemaining()) {
+			addBlock(1);
+		}
+		this.tail.put((byte) datum);
+	}
+
+	@Override
+	public void write(byte[] data, int offset, int length) throws IOException {
+		if (offset < 0 || length < 0 || length > data.length - offset) {
+			throw new IndexOutOfBoundsException();
+		}
+		ensureOpen();
+		while (length > 0) {
+			if (this.tail == null || !this.tail.hasRemaining()) {
+				addBlock(length);
+			}
+			int count = Math.min(length, this.tail.remaining());
+			this.tail.put(data, offset, count);
+			offset += count;
+			length -= count;
+		}
+	}
+
+	/**
+	 * Return the number of bytes stored in this stream.
+	 */
+	public int size() {
+		return this.tail == null ? 0 : this.alreadyBufferedSize + this.tail.position();
+	}
+
+	/**
+	 * Creates a newly allocated byte array with the contents of this stream.
+	 * @return the current contents of this output stream, as a byte array.
+	 */
+	public byte[] toByteArray() {
+		byte[] ret = new byte[size()];
+		int pos = 0;
+		for (int i = 0; i < this.blockCount; i++) {
+			ByteBuffer block = readView(i);
+			int length = block.remaining();
+			block.get(ret, pos, length);
+			pos += length;
+		}
+		return ret;
+	}
+
+	/**
+	 * Write the blocks content to the given OutputStream.
+	 * @param out the OutputStream to write to
+	 * @throws IOException IOException
+	 */
+	public void writeTo(OutputStream out) throws IOException {
+		byte[] transfer = null;
+		for (int i = 0; i < this.blockCount; i++) {
+			ByteBuffer block = this.blocks[i];
+			if (block.hasArray()) {
+				out.write(block.array(), block.arrayOffset(), block.position());
+				continue;
+			}
+			if (transfer == null) {
+				transfer = new byte[TRANSFER_SIZE];
+			}
+			ByteBuffer view = readView(i);
+			while (view.hasRemaining()) {
+				int count = Math.min(view.remaining(), transfer.length);
+				view.get(transfer, 0, count);
+				out.write(transfer, 0, count);
+			}
+		}
+	}
+
+	/**
+	 * Write the blocks content to the given channel, with one gathering write of all blocks
+	 * (repeated until everything is written) if it is a {@link GatheringByteChannel}.
+	 * @param channel the channel to write to
+	 * @return the number of bytes written
+	 * @throws IOException IOException
+	 */
+	public long writeTo(WritableByteChannel channel) throws IOException {
+		ByteBuffer[] views = new ByteBuffer[this.blockCount];
+		for (int i = 0; i < views.length; i++) {
+			views[i] = readView(i);
+		}
+		long total = size();
+		if (channel instanceof GatheringByteChannel) {
+			GatheringByteChannel gathering = (GatheringByteChannel) channel;
+			int first = 0;
+			long written = 0;
+			while (written < total) {
+				written += gathering.write(views, first, views.length - first);
+				while (first < views.length && !views[first].hasRemaining()) {
+					first++;
+				}
+			}
+		}
+		else {
+			for (ByteBuffer view : views) {
+				while (view.hasRemaining()) {
+					channel.write(view);
+				}
+			}
+		}
+		return total;
+	}
+
+	/**
+	 * Get an {@link InputStream} to retrieve the data in this OutputStream.
+	 * <p>Writing to or resetting this stream while reading makes the InputStream's behavior undefined.
+	 * @return {@link InputStream} of the contents of this OutputStream
+	 */
+	public InputStream getInputStream() {
+		return new ByteBlockInputStream();
+	}
+
+	/**
+	 * Reset the contents of this stream, pooled blocks are given back.
+	 * <p>All currently accumulated output in the output stream is discarded.
+	 * The output stream can be used again.
+	 */
+	public void reset() {
+		releaseBlocks();
+		this.nextBlockSize = this.initialBlockSize;
+		this.closed = false;
+	}
+
+	/**
+	 * Close the stream, pooled blocks are given back.
+	 */
+	@Override
+	public void close() {
+		this.closed = true;
+		if (this.pool != null || this.direct) {
+			releaseBlocks();
+		}
+	}
+
+	/**
+	 * Add a block that can store at least {@code minCapacity} bytes.
+	 */
+	private void addBlock(int minCapacity) {
+		if (this.tail != null) {
+			this.alreadyBufferedSize += this.tail.position();
+		}
+		if (this.nextBlockSize < minCapacity) {
+			this.nextBlockSize = minCapacity;
+		}
+		if (this.direct && this.nextBlockSize > MAX_DIRECT_BLOCK_SIZE) {
+			this.nextBlockSize = MAX_DIRECT_BLOCK_SIZE;
+		}
+		ByteBuffer block;
+		if (this.direct) {
+			block = DIRECT_POOL.acquire(this.nextBlockSize);
+		}
+		else if (this.pool != null) {
+			block = ByteBuffer.wrap(this.pool.acquire(this.nextBlockSize));
+		}
+		else {
+			block = ByteBuffer.allocate(this.nextBlockSize);
+		}
+		if (this.blockCount == this.blocks.length) {
+			this.blocks = Arrays.copyOf(this.blocks, this.blockCount * 2);
+		}
+		this.blocks[this.blockCount++] = block;
+		this.tail = block;
+		// block size doubles each time
+		this.nextBlockSize = this.nextBlockSize > Integer.MAX_VALUE / 2 ? Integer.MAX_VALUE : this.nextBlockSize * 2;
+	}
+
+	private void releaseBlocks() {
+		for (int i = 0; i < this.blockCount; i++) {
+			ByteBuffer block = this.blocks[i];
+			if (this.direct) {
+				DIRECT_POOL.release(block);
+			}
+			else if (this.pool != null) {
+				this.pool.release(block.array());
+			}
+			this.blocks[i] = null;
+		}
+		this.blockCount = 0;
+		this.tail = null;
+		this.alreadyBufferedSize = 0;
+	}
+
+	/**
+	 * A read only view of the written bytes of a block
+	 */
+	private ByteBuffer readView(int i) {
+		ByteBuffer view = this.blocks[i].duplicate();
+		view.flip();
+		return view;
+	}
+
+	private void ensureOpen() throws IOException {
+		if (this.closed) {
+			throw new IOException("Stream closed");
+		}
+	}
+
+	/**
+	 * Reads the blocks of the enclosing stream in a loop
+	 */
+	private final class ByteBlockInputStream extends InputStream {
+
+		private int blockIndex = 0;
+
+		private ByteBuffer current;
+
+		private int totalBytesRead = 0;
+
+		@Override
+		public int read() {
+			if (!nextBlock()) {
+				return -1;
+			}
+			this.totalBytesRead++;
+			return this.current.get() & 0xFF;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) {
+			if (off < 0 || len < 0 || len > b.length - off) {
+				throw new IndexOutOfBoundsException();
+			}
+			if (len == 0) {
+				return 0;
+			}
+			int read = 0;
+			while (read < len && nextBlock()) {
+				int count = Math.min(len - read, this.current.remaining());
+				this.current.get(b, off + read, count);
+				read += count;
+			}
+			this.totalBytesRead += read;
+			return read == 0 ? -1 : read;
+		}
+
+		@Override
+		public long skip(long n) {
+			long skipped = 0;
+			while (skipped < n && nextBlock()) {
+				int count = (int) Math.min(n - skipped, this.current.remaining());
+				this.current.position(this.current.position() + count);
+				skipped += count;
+			}
+			this.totalBytesRead += (int) skipped;
+			return skipped;
+		}
+
+		@Override
+		public int available() {
+			return size() - this.totalBytesRead;
+		}
+
+		/**
+		 * Move to the next block with remaining bytes
+		 * @return false at the end of the contents
+		 */
+		private boolean nextBlock() {
+			while (this.current == null || !this.current.hasRemaining()) {
+				if (this.blockIndex >= blockCount) {
+					return false;
+				}
+				this.current = readView(this.blockIndex++);
+			}
+			return true;
+		}
+	}
+
+	/**
+	 * Bounded pool of direct blocks in power of two classes between 4KB and 1MB,
+	 * larger blocks are allocated and left to the garbage collector.
+	 */
+	private static final class DirectBlockPool {
+
+		private static final int MIN_SHIFT = 12;
+
+		private static final int MAX_SHIFT = 20;
+
+		private static final int CAPACITY = 16;
+
+		private final ConcurrentLinkedQueue<ByteBuffer>[] queues;
+
+		private final AtomicInteger[] sizes;
+
+		@SuppressWarnings({"unchecked", "rawtypes"})
+		DirectBlockPool() {
+			this.queues = new ConcurrentLinkedQueue[MAX_SHIFT - MIN_SHIFT + 1];
+			this.sizes = new AtomicInteger[this.queues.length];
+			for (int i = 0; i < this.queues.length; i++) {
+				this.queues[i] = new ConcurrentLinkedQueue<>();
+				this.sizes[i] = new AtomicInteger();
+			}
+		}
+
+		ByteBuffer acquire(int minCapacity) {
+			if (minCapacity > 1 << MAX_SHIFT) {
+				return ByteBuffer.allocateDirect(minCapacity);
+			}
+			int shift = Math.max(MIN_SHIFT, 32 - Integer.numberOfLeadingZeros(minCapacity - 1));
+			ByteBuffer block = this.queues[shift - MIN_SHIFT].poll();
+			if (block == null) {
+				return ByteBuffer.allocateDirect(1 << shift);
+			}
+			this.sizes[shift - MIN_SHIFT].decrementAndGet();
+			block.clear();
+			return block;
+		}
+
+		void release(ByteBuffer block) {
+			int capacity = block.capacity();
+			if (Integer.bitCount(capacity) != 1 || capacity < 1 << MIN_SHIFT || capacity > 1 << MAX_SHIFT) {
+				return;
+			}
+			int index = Integer.numberOfTrailingZeros(capacity) - MIN_SHIFT;
+			if (this.sizes[index].incrementAndGet() <= CAPACITY) {
+				this.queues[index].offer(block);
+			}
+			else {
+				this.sizes[index].decrementAndGet();
+			}
+		}
+	}
+}
@@ -37,6 +37,10 @@ import org.spreadme.commons.lang.Assert;
  * There is also no copying of the internal buffer if its contents is extracted
  * with the {@link #writeTo(OutputStream)} method.
  *
+ * <p>Blocks can be borrowed from a {@link BufferPool}: they are given back on
+ * {@link #reset()} and {@link #close()}, so the contents must be extracted before
+ * closing a pooled stream. Arrays returned by {@link #toByteArrayUnsafe()} are never pooled.
+ *
  * @author Craig Andrews
  * @author Juergen Hoeller
  */
@@ -47,6 +51,12 @@ public class FastByteArrayOutputStream extends OutputStream {
 	// The buffers used to store the content bytes
 	private final LinkedList<byte[]> buffers = new LinkedList<>();
 
+	// The pool the buffers are borrowed from, null to allocate them
+	private final BufferPool pool;
+
+	// Whether the first buffer was allocated by resize() instead of the pool
+	private boolean firstUnpooled = false;
+
 	// The size, in bytes, to use when allocating the first byte[]
 	private final int initialBlockSize;
 
@@ -77,9 +87,29 @@ public class FastByteArrayOutputStream extends OutputStream {
 	 * @param initialBlockSize the initial buffer size in bytes
 	 */
 	public FastByteArrayOutputStream(int initialBlockSize) {
+		this(initialBlockSize, null);
+	}
+
+	/**
+	 * Create a new <code>FastByteArrayOutputStream</code>
+	 * borrowing its buffers from the given pool.
+	 * @param pool the buffer pool
+	 */
+	public FastByteArrayOutputStream(BufferPool pool) {
+		this(DEFAULT_BLOCK_SIZE, pool);
+	}
+
+	/**
+	 * Create a new <code>FastByteArrayOutputStream</code>
+	 * with the specified initial capacity.
+	 * @param initialBlockSize the initial buffer size in bytes
+	 * @param pool the buffer pool, null to allocate the buffers
+	 */
+	public FastByteArrayOutputStream(int initialBlockSize, BufferPool pool) {
 		Assert.isTrue(initialBlockSize > 0, "Initial block size must be greater than 0");
 		this.initialBlockSize = initialBlockSize;
 		this.nextBlockSize = initialBlockSize;
+		this.pool = pool;
 	}
 
 	@Override
@@ -133,9 +163,17 @@ public class FastByteArrayOutputStream extends OutputStream {
 		}
 	}
 
+	/**
+	 * Close the stream, the buffers of a pooled stream are given back to the pool.
+	 */
 	@Override
 	public void close() {
 		this.closed = true;
+		if (this.pool != null) {
+			releaseBuffers();
+			this.index = 0;
+			this.alreadyBufferedSize = 0;
+		}
 	}
 
 	/**
@@ -193,9 +231,15 @@ public class FastByteArrayOutputStream extends OutputStream {
 	 * @see #toByteArrayUnsafe()
 	 */
 	public byte[] toByteArray() {
-		byte[] bytesUnsafe = toByteArrayUnsafe();
-		byte[] ret = new byte[bytesUnsafe.length];
-		System.arraycopy(bytesUnsafe, 0, ret, 0, bytesUnsafe.length);
+		byte[] ret = new byte[size()];
+		int pos = 0;
+		Iterator<byte[]> it = this.buffers.iterator();
+		while (it.hasNext()) {
+			byte[] bytes = it.next();
+			int length = it.hasNext() ? bytes.length : this.index;
+			System.arraycopy(bytes, 0, ret, pos, length);
+			pos += length;
+		}
 		return ret;
 	}
 
@@ -205,7 +249,7 @@ public class FastByteArrayOutputStream extends OutputStream {
 	 * The output stream can be used again.
 	 */
 	public void reset() {
-		this.buffers.clear();
+		releaseBuffers();
 		this.nextBlockSize = this.initialBlockSize;
 		this.closed = false;
 		this.index = 0;
@@ -253,7 +297,9 @@ public class FastByteArrayOutputStream extends OutputStream {
 		if (this.buffers.peekFirst() == null) {
 			this.nextBlockSize = targetCapacity - size();
 		}
-		else if (size() != targetCapacity || this.buffers.getFirst().length != targetCapacity) {
+		// a single full block borrowed from the pool is copied as well, it must not escape the stream
+		else if (size() != targetCapacity || this.buffers.getFirst().length != targetCapacity
+				|| (this.pool != null && !this.firstUnpooled)) {
 			int totalSize = size();
 			byte[] data = new byte[targetCapacity];
 			int pos = 0;
@@ -268,8 +314,9 @@ public class FastByteArrayOutputStream extends OutputStream {
 					System.arraycopy(bytes, 0, data, pos, this.index);
 				}
 			}
-			this.buffers.clear();
+			releaseBuffers();
 			this.buffers.add(data);
+			this.firstUnpooled = true;
 			this.index = totalSize;
 			this.alreadyBufferedSize = 0;
 		}
@@ -287,10 +334,27 @@ public class FastByteArrayOutputStream extends OutputStream {
 		if (this.nextBlockSize < minCapacity) {
 			this.nextBlockSize = nextPowerOf2(minCapacity);
 		}
-		this.buffers.add(new byte[this.nextBlockSize]);
+		this.buffers.add(this.pool != null ? this.pool.acquire(this.nextBlockSize) : new byte[this.nextBlockSize]);
 		this.nextBlockSize *= 2;  // block size doubles each time
 	}
 
+	/**
+	 * Give the buffers back to the pool and clear the LinkedList
+	 */
+	private void releaseBuffers() {
+		if (this.pool != null) {
+			Iterator<byte[]> it = this.buffers.iterator();
+			if (this.firstUnpooled && it.hasNext()) {
+				it.next();
+			}
+			while (it.hasNext()) {
+				this.pool.release(it.next());
+			}
+		}
+		this.buffers.clear();
+		this.firstUnpooled = false;
+	}
+
 	/**
 	 * Get the next power of 2 of a number (ex, the next power of 2 of 119 is 128).
 	 */
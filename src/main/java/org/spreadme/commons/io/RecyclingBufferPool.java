@@ -0,0 +1,165 @@
+/*
+ *    Copyright [2019] [shuwei.wang (c) wswill@foxmail.com]
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package org.spreadme.commons.io;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Size classed {@link BufferPool} with a per thread cache in front of a shared one
+ * <p>Arrays are rounded up to a power of two between 256 bytes and 1MB, larger requests are
+ * allocated and dropped as usual. A released array goes to the small cache of the releasing
+ * thread (classes up to 64KB only) and then to the bounded shared cache, the rest is left to the
+ * garbage collector. The shared cache retains at most {@code sharedCapacity} arrays per class, but every
+ * thread that ever releases keeps up to {@code localCapacity} arrays of each class from 256 bytes to 64KB,
+ * about 128KB times {@code localCapacity}, so the retained memory grows with the number of releasing
+ * threads: 512KB per thread for {@link #DEFAULT}, 100MB on a pool of 200 threads. Use a small
+ * {@code localCapacity} when many threads release buffers.</p>
+ * <p>With leak detection enabled (for debug builds and tests, or {@code -Dspreadme.buffer.leakDetection=true}
+ * for {@link #DEFAULT}) every outstanding array is recorded with the stack trace of its acquisition,
+ * releasing an unknown array fails and {@link #getLeaks()} reports the arrays that were never released.</p>
+ * @author shuwei.wang
+ * @since 1.0.0
+ */
+public class RecyclingBufferPool implements BufferPool {
+
+	public static final RecyclingBufferPool DEFAULT = new RecyclingBufferPool(4, 32,
+			Boolean.getBoolean("spreadme.buffer.leakDetection"));
+
+	private static final int MIN_SHIFT = 8;
+
+	private static final int MAX_SHIFT = 20;
+
+	private static final int MAX_LOCAL_SHIFT = 16;
+
+	private static final int CLASSES = MAX_SHIFT - MIN_SHIFT + 1;
+
+	private final int localCapacity;
+
+	private final int sharedCapacity;
+
+	private final ThreadLocal<ArrayDeque<byte[]>[]> local;
+
+	private final ConcurrentLinkedQueue<byte[]>[] shared;
+
+	private final AtomicInteger[] sharedSizes;
+
+	// outstanding array -> acquisition site, null without leak detection
+	private final Map<byte[], Throwable> outstanding;
+
+	/**
+	 * @param localCapacity the arrays kept per size class and thread
+	 * @param sharedCapacity the arrays kept per size class for all threads
+	 * @param leakDetection whether to track outstanding arrays
+	 */
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	public RecyclingBufferPool(int localCapacity, int sharedCapacity, boolean leakDetection) {
+		this.localCapacity = localCapacity;
+		this.sharedCapacity = sharedCapacity;
+		this.local = ThreadLocal.withInitial(() -> new ArrayDeque[MAX_LOCAL_SHIFT - MIN_SHIFT + 1]);
+		this.shared = new ConcurrentLinkedQueue[CLASSES];
+		this.sharedSizes = new AtomicInteger[CLASSES];
+		for (int i = 0; i < CLASSES; i++) {
+			this.shared[i] = new ConcurrentLinkedQueue<>();
+			this.sharedSizes[i] = new AtomicInteger();
+		}
+		this.outstanding = leakDetection ? Collections.synchronizedMap(new IdentityHashMap<>()) : null;
+	}
+
+	@Override
+	public byte[] acquire(int minCapacity) {
+		if (minCapacity > 1 << MAX_SHIFT) {
+			return new byte[minCapacity];
+		}
+		int shift = shift(minCapacity);
+		byte[] buffer = null;
+		if (shift <= MAX_LOCAL_SHIFT) {
+			ArrayDeque<byte[]> cache = local.get()[shift - MIN_SHIFT];
+			buffer = cache == null ? null : cache.pollLast();
+		}
+		if (buffer == null) {
+			buffer = shared[shift - MIN_SHIFT].poll();
+			if (buffer != null) {
+				sharedSizes[shift - MIN_SHIFT].decrementAndGet();
+			}
+			else {
+				buffer = new byte[1 << shift];
+			}
+		}
+		if (outstanding != null) {
+			outstanding.put(buffer, new Throwable("buffer of " + buffer.length + " bytes acquired here"));
+		}
+		return buffer;
+	}
+
+	@Override
+	public void release(byte[] buffer) {
+		if (outstanding != null && outstanding.remove(buffer) == null && isPooled(buffer)) {
+			throw new IllegalStateException("buffer released twice or not acquired from this pool");
+		}
+		if (!isPooled(buffer)) {
+			return;
+		}
+		int shift = Integer.numberOfTrailingZeros(buffer.length);
+		if (shift <= MAX_LOCAL_SHIFT) {
+			ArrayDeque<byte[]>[] caches = local.get();
+			ArrayDeque<byte[]> cache = caches[shift - MIN_SHIFT];
+			if (cache == null) {
+				cache = caches[shift - MIN_SHIFT] = new ArrayDeque<>(localCapacity);
+			}
+			if (cache.size() < localCapacity) {
+				cache.addLast(buffer);
+				return;
+			}
+		}
+		if (sharedSizes[shift - MIN_SHIFT].incrementAndGet() <= sharedCapacity) {
+			shared[shift - MIN_SHIFT].offer(buffer);
+		}
+		else {
+			sharedSizes[shift - MIN_SHIFT].decrementAndGet();
+		}
+	}
+
+	/**
+	 * @return the acquisition sites of the arrays that were not released yet,
+	 * empty without leak detection
+	 */
+	public List<Throwable> getLeaks() {
+		if (outstanding == null) {
+			return Collections.emptyList();
+		}
+		synchronized (outstanding) {
+			return new ArrayList<>(outstanding.values());
+		}
+	}
+
+	private static boolean isPooled(byte[] buffer) {
+		int length = buffer.length;
+		return Integer.bitCount(length) == 1 && length >= 1 << MIN_SHIFT && length <= 1 << MAX_SHIFT;
+	}
+
+	private static int shift(int capacity) {
+		return capacity <= 1 << MIN_SHIFT ? MIN_SHIFT : 32 - Integer.numberOfLeadingZeros(capacity - 1);
+	}
+}
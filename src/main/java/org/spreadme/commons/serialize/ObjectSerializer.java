@@ -22,6 +22,7 @@ import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 
 import org.spreadme.commons.io.FastByteArrayOutputStream;
+import org.spreadme.commons.io.RecyclingBufferPool;
 
 /**
  * Object Serializer
@@ -31,7 +32,7 @@ public class ObjectSerializer<T> implements Serializer {
 
 	@Override
 	public byte[] serialize(Object object) throws SerializeException {
-		try (FastByteArrayOutputStream bos = new FastByteArrayOutputStream();
+		try (FastByteArrayOutputStream bos = new FastByteArrayOutputStream(RecyclingBufferPool.DEFAULT);
 			 ObjectOutputStream oos = new ObjectOutputStream(bos)) {
 
 			oos.writeObject(object);
@@ -50,6 +50,7 @@ import java.util.zip.ZipInputStream;
 import java.util.zip.ZipOutputStream;
 
 import org.spreadme.commons.io.FastByteArrayOutputStream;
+import org.spreadme.commons.io.RecyclingBufferPool;
 import org.spreadme.commons.io.RepeatableInputStream;
 import org.spreadme.commons.io.LineIterator;
 import org.spreadme.commons.io.resources.Resource;
@@ -139,9 +140,10 @@ public abstract class IOUtil {
 	 * @throws IOException IOException
 	 */
 	public static byte[] toByteArray(InputStream input) throws IOException {
-		final FastByteArrayOutputStream bos = new FastByteArrayOutputStream();
-		copy(input, bos);
-		return bos.toByteArray();
+		try (FastByteArrayOutputStream bos = new FastByteArrayOutputStream(RecyclingBufferPool.DEFAULT)) {
+			copy(input, bos);
+			return bos.toByteArray();
+		}
 	}
 
 	/**
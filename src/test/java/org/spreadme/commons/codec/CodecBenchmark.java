@@ -0,0 +1,144 @@
+/*
+ *    Copyright [2019] [shuwei.wang (c) wswill@foxmail.com]
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package org.spreadme.commons.codec;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.spreadme.commons.lang.Charsets;
+import org.spreadme.commons.lang.Randoms;
+
+/**
+ * JMH benchmark of {@link Base64} and {@link Hex} against {@link java.util.Base64}
+ * <p>encode and decode of byte[] and String data from 16 B to 16 MB, the gc profiler reports the bytes allocated per operation.
+ * The JDK has no hex codec before 17, so Hex is measured on its own.</p>
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=org.spreadme.commons.codec.CodecBenchmark
+ * </pre>
+ * @author shuwei.wang
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CodecBenchmark {
+
+	@Param({"16", "1024", "65536", "1048576", "16777216"})
+	private int size;
+
+	private byte[] data;
+
+	private byte[] base64;
+
+	private String base64String;
+
+	private byte[] hex;
+
+	private String hexString;
+
+	@Setup
+	public void setup() {
+		data = Randoms.nextBytes(size);
+		base64 = java.util.Base64.getEncoder().encode(data);
+		base64String = new String(base64, Charsets.US_ASCII);
+		hex = Hex.encode(data);
+		hexString = new String(hex, Charsets.US_ASCII);
+	}
+
+	@Benchmark
+	public byte[] base64Encode() {
+		return Base64.encode(data);
+	}
+
+	@Benchmark
+	public byte[] jdkBase64Encode() {
+		return java.util.Base64.getEncoder().encode(data);
+	}
+
+	@Benchmark
+	public String base64EncodeToString() {
+		return Base64.toBase64String(data);
+	}
+
+	@Benchmark
+	public String jdkBase64EncodeToString() {
+		return java.util.Base64.getEncoder().encodeToString(data);
+	}
+
+	@Benchmark
+	public byte[] base64Decode() {
+		return Base64.decode(base64);
+	}
+
+	@Benchmark
+	public byte[] jdkBase64Decode() {
+		return java.util.Base64.getDecoder().decode(base64);
+	}
+
+	@Benchmark
+	public byte[] base64DecodeString() {
+		return Base64.decode(base64String);
+	}
+
+	@Benchmark
+	public byte[] jdkBase64DecodeString() {
+		return java.util.Base64.getDecoder().decode(base64String);
+	}
+
+	@Benchmark
+	public byte[] hexEncode() {
+		return Hex.encode(data);
+	}
+
+	@Benchmark
+	public String hexEncodeToString() {
+		return Hex.toHexString(data);
+	}
+
+	@Benchmark
+	public byte[] hexDecode() {
+		return Hex.decode(hex);
+	}
+
+	@Benchmark
+	public byte[] hexDecodeString() {
+		return Hex.decode(hexString);
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		Options options = new OptionsBuilder()
+				.include(CodecBenchmark.class.getSimpleName())
+				.mode(Mode.AverageTime)
+				.timeUnit(TimeUnit.NANOSECONDS)
+				.addProfiler(GCProfiler.class)
+				.build();
+		new Runner(options).run();
+	}
+}
@@ -16,12 +16,20 @@
 
 package org.spreadme.commons.codec;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
 import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
 
 import org.junit.Test;
+import org.spreadme.commons.id.support.SnowflakeLongGenerator;
 import org.spreadme.commons.lang.Assert;
+import org.spreadme.commons.io.FastByteArrayOutputStream;
 import org.spreadme.commons.lang.Charsets;
+import org.spreadme.commons.lang.Randoms;
 import org.spreadme.commons.util.Console;
+import org.spreadme.commons.util.IOUtil;
 import org.spreadme.commons.util.StringUtil;
 
 /**
@@ -40,6 +48,22 @@ public class CodecTest {
 		Assert.isTrue(Arrays.equals(plainText.getBytes(Charsets.UTF_8), originData), "hex编码失败");
 	}
 
+	@Test
+	public void testHexBulk() {
+		for (int length = 0; length < 100; length++) {
+			byte[] data = Randoms.nextBytes(length);
+			StringBuilder expected = new StringBuilder();
+			for (byte b : data) {
+				expected.append(String.format("%02x", b & 0xff));
+			}
+			String hex = Hex.toHexString(data);
+			Assert.isTrue(expected.toString().equals(hex), "hex bulk string encode failed");
+			Assert.isTrue(Arrays.equals(data, Hex.decode(hex.toUpperCase())), "hex bulk upper case decode failed");
+			Assert.isTrue(Arrays.equals(data, Hex.decode(Hex.encode(data))), "hex bulk byte decode failed");
+			Assert.isTrue(Arrays.equals(data, Hex.decode(hex.replaceAll("(.{8})", "$1\n"))), "hex bulk lenient decode failed");
+		}
+	}
+
 	@Test
 	public void testBase64() {
 		String base64 = Base64.toBase64String(plainText.getBytes(Charsets.UTF_8));
@@ -47,4 +71,203 @@ public class CodecTest {
 		byte[] originData = Base64.decode(base64);
 		Assert.isTrue(Arrays.equals(plainText.getBytes(Charsets.UTF_8), originData), "base64编码失败");
 	}
+
+	@Test
+	public void testBase64Bulk() throws Exception {
+		for (int length = 0; length < 100; length++) {
+			byte[] data = Randoms.nextBytes(length);
+			String expected = java.util.Base64.getEncoder().encodeToString(data);
+			Assert.isTrue(expected.equals(Base64.toBase64String(data)), "base64 bulk string encode failed");
+			Assert.isTrue(Arrays.equals(expected.getBytes(Charsets.UTF_8), Base64.encode(data)), "base64 bulk encode failed");
+			FastByteArrayOutputStream out = new FastByteArrayOutputStream();
+			Base64.encode(data, out);
+			Assert.isTrue(Arrays.equals(expected.getBytes(Charsets.UTF_8), out.toByteArray()), "base64 stream encode failed");
+			Assert.isTrue(Arrays.equals(data, Base64.decode(expected)), "base64 bulk string decode failed");
+			Assert.isTrue(Arrays.equals(data, Base64.decode(expected.getBytes(Charsets.UTF_8))), "base64 bulk decode failed");
+			String wrapped = java.util.Base64.getMimeEncoder(8, new byte[]{'\r', '\n'}).encodeToString(data);
+			Assert.isTrue(Arrays.equals(data, Base64.decode(wrapped)), "base64 whitespace decode failed");
+		}
+		Assert.isTrue(Arrays.equals("AB".getBytes(Charsets.US_ASCII), Base64.decode("QUI=")), "base64 padded decode failed");
+		// padding inside an unpadded tail or a block of padding only is invalid
+		for (String invalid : new String[]{"QQ=", "Q==="}) {
+			try {
+				Base64.decode(invalid);
+				Assert.isTrue(false, "base64 invalid padding decoded: " + invalid);
+			}
+			catch (DecoderException ignore) {
+			}
+			try {
+				Base64.decode(invalid.getBytes(Charsets.US_ASCII));
+				Assert.isTrue(false, "base64 invalid padding decoded: " + invalid);
+			}
+			catch (DecoderException ignore) {
+			}
+		}
+	}
+
+	@Test
+	public void testBase64Parallel() throws Exception {
+		byte[] data = Randoms.nextBytes(Base64.PARALLEL_THRESHOLD + 1000);
+		byte[] expected = java.util.Base64.getEncoder().encode(data);
+		Assert.isTrue(Arrays.equals(expected, Base64.encode(data)), "base64 parallel encode failed");
+		Assert.isTrue(Arrays.equals(data, Base64.decode(expected)), "base64 parallel decode failed");
+		Assert.isTrue(Arrays.equals(data, Base64.decode(new String(expected, Charsets.US_ASCII))), "base64 parallel string decode failed");
+
+		ForkJoinPool pool = new ForkJoinPool(4);
+		Base64Encoder[] encoders = {new MimeBase64Encoder(), new UrlBase64Encoder()};
+		java.util.Base64.Encoder[] references = {java.util.Base64.getMimeEncoder(), java.util.Base64.getUrlEncoder().withoutPadding()};
+		for (int i = 0; i < encoders.length; i++) {
+			byte[] encoded = new byte[encoders[i].getEncodedLength(data.length)];
+			encoders[i].encode(data, 0, data.length, encoded, 0, pool);
+			Assert.isTrue(Arrays.equals(references[i].encode(data), encoded), "base64 parallel variant encode failed");
+		}
+		byte[] decoded = new byte[data.length];
+		byte[] unpadded = java.util.Base64.getUrlEncoder().withoutPadding().encode(data);
+		new UrlBase64Encoder().decode(unpadded, 0, unpadded.length, decoded, 0, pool);
+		Assert.isTrue(Arrays.equals(data, decoded), "base64 parallel unpadded decode failed");
+
+		// padding at the end of the first 1M character chunk is only valid at the end of the data
+		int chunkEnd = 1 << 20;
+		byte[] padded = expected.clone();
+		padded[chunkEnd - 2] = '=';
+		padded[chunkEnd - 1] = '=';
+		try {
+			new Base64Encoder().decode(padded, 0, padded.length, new byte[data.length], 0, pool);
+			Assert.isTrue(false, "base64 parallel decode accepted inner padding");
+		}
+		catch (IOException ignore) {
+		}
+		try {
+			new Base64Encoder().decode(new String(padded, Charsets.US_ASCII), new byte[data.length], 0, pool);
+			Assert.isTrue(false, "base64 parallel string decode accepted inner padding");
+		}
+		catch (IOException ignore) {
+		}
+		pool.shutdown();
+	}
+
+	@Test
+	public void testBase64Stream() throws Exception {
+		byte[] data = Randoms.nextBytes(100 * 1024 + 1);
+		FastByteArrayOutputStream out = new FastByteArrayOutputStream();
+		try (Base64OutputStream base64Out = new Base64OutputStream(out, 76, new byte[]{'\r', '\n'})) {
+			// odd sized writes to carry partial groups across writes
+			for (int i = 0; i < data.length; i += 1000) {
+				base64Out.write(data, i, Math.min(1000, data.length - i));
+			}
+		}
+		byte[] expected = java.util.Base64.getMimeEncoder().encode(data);
+		Assert.isTrue(Arrays.equals(expected, out.toByteArray()), "base64 output stream failed");
+
+		FastByteArrayOutputStream decoded = new FastByteArrayOutputStream();
+		try (Base64InputStream base64In = new Base64InputStream(out.getInputStream())) {
+			IOUtil.copy(base64In, decoded);
+		}
+		Assert.isTrue(Arrays.equals(data, decoded.toByteArray()), "base64 input stream failed");
+	}
+
+	@Test
+	public void testBase64Variants() throws Exception {
+		for (int length = 0; length < 300; length++) {
+			byte[] data = Randoms.nextBytes(length);
+			String url = java.util.Base64.getUrlEncoder().withoutPadding().encodeToString(data);
+			Assert.isTrue(url.equals(UrlBase64.toBase64String(data)), "url base64 encode failed");
+			Assert.isTrue(Arrays.equals(data, UrlBase64.decode(url)), "url base64 decode failed");
+			String mime = java.util.Base64.getMimeEncoder().encodeToString(data);
+			Assert.isTrue(mime.equals(MimeBase64.toBase64String(data)), "mime base64 encode failed");
+			Assert.isTrue(Arrays.equals(data, MimeBase64.decode(mime)), "mime base64 decode failed");
+		}
+		byte[] data = Randoms.nextBytes(10 * 1024 + 2);
+		FastByteArrayOutputStream out = new FastByteArrayOutputStream();
+		try (Base64OutputStream base64Out = new Base64OutputStream(out, new UrlBase64Encoder())) {
+			base64Out.write(data);
+		}
+		Assert.isTrue(java.util.Base64.getUrlEncoder().withoutPadding().encodeToString(data)
+				.equals(out.toString()), "url base64 output stream failed");
+		FastByteArrayOutputStream decoded = new FastByteArrayOutputStream();
+		try (Base64InputStream base64In = new Base64InputStream(out.getInputStream(), new UrlBase64Encoder())) {
+			IOUtil.copy(base64In, decoded);
+		}
+		Assert.isTrue(Arrays.equals(data, decoded.toByteArray()), "url base64 input stream failed");
+	}
+
+	@Test
+	public void testByteBufferCodec() throws Exception {
+		byte[] data = Randoms.nextBytes(1000);
+		final HexEncoder hex = new HexEncoder();
+		// only the byte[] methods, exercises the default ByteBuffer fallback
+		Encoder byteArrayOnly = new Encoder() {
+			@Override
+			public int encode(byte[] data, int off, int length, OutputStream out) throws IOException {
+				return hex.encode(data, off, length, out);
+			}
+
+			@Override
+			public int decode(byte[] data, int off, int length, OutputStream out) throws IOException {
+				return hex.decode(data, off, length, out);
+			}
+
+			@Override
+			public int decode(String data, OutputStream out) throws IOException {
+				return hex.decode(data, out);
+			}
+		};
+		Encoder[] encoders = {new Base64Encoder(), new MimeBase64Encoder(), new UrlBase64Encoder(), hex, byteArrayOnly};
+		for (Encoder encoder : encoders) {
+			FastByteArrayOutputStream expected = new FastByteArrayOutputStream();
+			encoder.encode(data, 0, data.length, expected);
+			for (boolean direct : new boolean[]{false, true}) {
+				ByteBuffer src = direct ? ByteBuffer.allocateDirect(data.length) : ByteBuffer.allocate(data.length);
+				src.put(data).flip();
+				ByteBuffer encoded = direct ? ByteBuffer.allocateDirect(expected.size()) : ByteBuffer.allocate(expected.size());
+				int length = encoder.encode(src, encoded);
+				encoded.flip();
+				byte[] actual = new byte[encoded.remaining()];
+				encoded.duplicate().get(actual);
+				Assert.isTrue(length == expected.size() && Arrays.equals(expected.toByteArray(), actual),
+						encoder.getClass().getSimpleName() + " byte buffer encode failed");
+				ByteBuffer decoded = direct ? ByteBuffer.allocateDirect(data.length) : ByteBuffer.allocate(data.length);
+				encoder.decode(encoded, decoded);
+				Assert.isTrue(!encoded.hasRemaining() && !decoded.hasRemaining(), "byte buffer decode must consume src");
+				decoded.flip();
+				Assert.isTrue(decoded.equals(ByteBuffer.wrap(data)),
+						encoder.getClass().getSimpleName() + " byte buffer decode failed");
+			}
+		}
+	}
+
+	@Test
+	public void testRadixCodecs() {
+		String[] plain = {"", "f", "fo", "foo", "foob", "fooba", "foobar"};
+		String[] base32 = {"", "MY======", "MZXQ====", "MZXW6===", "MZXW6YQ=", "MZXW6YTB", "MZXW6YTBOI======"};
+		for (int i = 0; i < plain.length; i++) {
+			Assert.isTrue(base32[i].equals(Base32.toBase32String(plain[i].getBytes(Charsets.UTF_8))), "base32 encode failed");
+			Assert.isTrue(plain[i].equals(new String(Base32.decode(base32[i].toLowerCase()), Charsets.UTF_8)), "base32 decode failed");
+		}
+		Assert.isTrue("2NEpo7TZRRrLZSi2U".equals(Base58.toBase58String("Hello World!".getBytes(Charsets.UTF_8))), "base58 encode failed");
+		for (int length = 0; length < 50; length++) {
+			byte[] data = Randoms.nextBytes(length);
+			if (length > 1) {
+				// leading zero bytes are kept as leading zero digits
+				data[0] = 0;
+			}
+			Assert.isTrue(Arrays.equals(data, Base32.decode(Base32.toBase32String(data))), "base32 round trip failed");
+			Assert.isTrue(Arrays.equals(data, Base58.decode(Base58.toBase58String(data))), "base58 round trip failed");
+			Assert.isTrue(Arrays.equals(data, Base62.decode(Base62.toBase62String(data))), "base62 round trip failed");
+		}
+
+		LongEncoder[] encoders = {new Base32Encoder(), new CrockfordBase32Encoder(), new Base58Encoder(), new Base62Encoder()};
+		long[] values = {0L, 1L, 31L, Long.MAX_VALUE, Long.MIN_VALUE, -1L, new SnowflakeLongGenerator(1, 1).nextId()};
+		for (LongEncoder encoder : encoders) {
+			char[] buffer = new char[encoder.getLongEncodedLength()];
+			for (long value : values) {
+				encoder.encode(value, buffer, 0);
+				Assert.isTrue(encoder.decodeLong(new String(buffer)) == value, encoder.getClass().getSimpleName() + " long round trip failed");
+			}
+			if (!(encoder instanceof Base32Encoder) || encoder instanceof CrockfordBase32Encoder) {
+				Assert.isTrue(encoder.toString(Long.MAX_VALUE).compareTo(encoder.toString(Long.MIN_VALUE)) < 0,
+						encoder.getClass().getSimpleName() + " long encoding must sort unsigned");
+			}
+		}
+	}
 }
@@ -16,19 +16,45 @@
 
 package org.spreadme.commons.digest;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.InputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumSet;
 import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
 
 import org.junit.Before;
 import org.junit.Test;
 import org.spreadme.commons.codec.Hex;
 import org.spreadme.commons.lang.Assert;
 import org.spreadme.commons.lang.Charsets;
+import org.spreadme.commons.lang.Randoms;
 import org.spreadme.commons.util.ClassUtil;
 import org.spreadme.commons.util.Concurrents;
 import org.spreadme.commons.util.Console;
@@ -79,4 +105,286 @@ public class DigestTest {
 		Assert.isTrue(hashSet.size() == 1, "多线程摘要测试失败");
 	}
 
+	@Test
+	public void mappedDigestTest() throws Exception {
+		byte[] data = Randoms.nextBytes(3 * 64 * 1024 + 17);
+		Path path = Files.createTempFile("digest", ".bin");
+		try {
+			Files.write(path, data);
+			Assert.isTrue(Arrays.equals(Digest.get(data, Digest.Algorithm.SHA256), Digest.get(path, Digest.Algorithm.SHA256)), "文件映射摘要测试失败");
+
+			// 4个分块: ((l0, l1), (l2, l3))
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			byte[][] leaves = new byte[4][];
+			for (int i = 0; i < leaves.length; i++) {
+				digest.update((byte) 0);
+				digest.update(data, i * 64 * 1024, Math.min(64 * 1024, data.length - i * 64 * 1024));
+				leaves[i] = digest.digest();
+			}
+			byte[][] nodes = new byte[2][];
+			for (int i = 0; i < nodes.length; i++) {
+				digest.update((byte) 1);
+				digest.update(leaves[2 * i]);
+				digest.update(leaves[2 * i + 1]);
+				nodes[i] = digest.digest();
+			}
+			digest.update((byte) 1);
+			digest.update(nodes[0]);
+			digest.update(nodes[1]);
+			byte[] root = Digest.getTreeHash(path, Digest.Algorithm.SHA256, 64 * 1024, ForkJoinPool.commonPool());
+			Assert.isTrue(Arrays.equals(digest.digest(), root), "树形摘要测试失败");
+		}
+		finally {
+			Files.delete(path);
+		}
+	}
+
+	@Test
+	public void multiDigestTest() throws Exception {
+		byte[] data = Randoms.nextBytes(3 * 1024 * 1024 + 5);
+		CRC32 expectedCrc = new CRC32();
+		expectedCrc.update(data, 0, data.length);
+		Path path = Files.createTempFile("digest", ".bin");
+		try {
+			Files.write(path, data);
+			CRC32 crc32 = new CRC32();
+			Map<Digest.Algorithm, byte[]> digests = Digest.get(path, EnumSet.of(Digest.Algorithm.MD5, Digest.Algorithm.SHA256), crc32);
+			Assert.isTrue(Arrays.equals(Digest.get(data, Digest.Algorithm.MD5), digests.get(Digest.Algorithm.MD5)), "多摘要MD5测试失败");
+			Assert.isTrue(Arrays.equals(Digest.get(data, Digest.Algorithm.SHA256), digests.get(Digest.Algorithm.SHA256)), "多摘要SHA256测试失败");
+			Assert.isTrue(crc32.getValue() == expectedCrc.getValue(), "多摘要CRC32测试失败");
+
+			crc32.reset();
+			try (InputStream in = Files.newInputStream(path)) {
+				digests = Digest.get(in, EnumSet.of(Digest.Algorithm.SHA1), crc32);
+			}
+			Assert.isTrue(Arrays.equals(Digest.get(data, Digest.Algorithm.SHA1), digests.get(Digest.Algorithm.SHA1)), "多摘要输入流测试失败");
+			Assert.isTrue(crc32.getValue() == expectedCrc.getValue(), "多摘要输入流CRC32测试失败");
+		}
+		finally {
+			Files.delete(path);
+		}
+	}
+
+	@Test
+	public void directDigestTest() throws Exception {
+		byte[] data = Randoms.nextBytes(1000);
+		for (Digest.Algorithm algorithm : Digest.Algorithm.values()) {
+			byte[] expected = MessageDigest.getInstance(algorithm.getValue()).digest(Arrays.copyOfRange(data, 10, 510));
+			String expectedHex = Hex.toHexString(expected);
+			Assert.isTrue(Arrays.equals(expected, Digest.get(data, 10, 500, algorithm)), "字节数组范围摘要测试失败");
+			Assert.isTrue(expectedHex.equals(Digest.toHexString(data, 10, 500, algorithm)), "字节数组范围Hex摘要测试失败");
+			ByteBuffer buffer = ByteBuffer.allocateDirect(data.length);
+			buffer.put(data);
+			buffer.position(10);
+			buffer.limit(510);
+			Assert.isTrue(expectedHex.equals(Digest.toHexString(buffer, algorithm)) && !buffer.hasRemaining(), "ByteBuffer摘要测试失败");
+		}
+	}
+
+	@Test
+	public void hmacTest() throws Exception {
+		// RFC 4231 test case 2
+		byte[] key = "Jefe".getBytes(Charsets.UTF_8);
+		byte[] data = "what do ya want for nothing?".getBytes(Charsets.UTF_8);
+		String expected = "5bdcc146bf60754e6a042426089575c75a003f089d2739839dec58b964ec3843";
+		for (int i = 0; i < 3; i++) {
+			Assert.isTrue(expected.equals(Hmac.toHexString(key, data, Hmac.Algorithm.HMAC_SHA256)), "HMAC测试失败");
+			Assert.isTrue(Hmac.verify(key, data, Hex.decode(expected), Hmac.Algorithm.HMAC_SHA256), "HMAC校验测试失败");
+			// 其他密钥不影响缓存的Mac
+			Hmac.get(Randoms.nextBytes(32), data, Hmac.Algorithm.HMAC_SHA256);
+		}
+		try (InputStream in = new ByteArrayInputStream(data)) {
+			Assert.isTrue(expected.equals(Hex.toHexString(Hmac.get(key, in, Hmac.Algorithm.HMAC_SHA256))), "HMAC输入流测试失败");
+		}
+		Assert.isTrue(expected.equals(Hex.toHexString(Hmac.get(key, ByteBuffer.wrap(data), Hmac.Algorithm.HMAC_SHA256))), "HMAC ByteBuffer测试失败");
+	}
+
+	@Test
+	public void pbkdf2Test() throws Exception {
+		String[] names = {"PBKDF2WithHmacSHA1", "PBKDF2WithHmacSHA256", "PBKDF2WithHmacSHA512"};
+		Pbkdf2.Algorithm[] algorithms = Pbkdf2.Algorithm.values();
+		for (int i = 0; i < algorithms.length; i++) {
+			SecretKeyFactory factory = SecretKeyFactory.getInstance(names[i]);
+			// 超过分组长度的口令先hash为密钥
+			for (String password : new String[]{StringUtil.randomString(8), StringUtil.randomString(50) + StringUtil.randomString(50) + StringUtil.randomString(50)}) {
+				byte[] salt = Randoms.nextBytes(16);
+				byte[] expected = factory.generateSecret(new PBEKeySpec(password.toCharArray(), salt, 1000, 100 * 8)).getEncoded();
+				byte[] actual = Pbkdf2.derive(password.getBytes(Charsets.UTF_8), salt, 1000, 100, algorithms[i]);
+				Assert.isTrue(Arrays.equals(expected, actual), algorithms[i] + " PBKDF2测试失败");
+			}
+		}
+		int iterations = Pbkdf2.calibrate(Pbkdf2.Algorithm.HMAC_SHA256, 20);
+		Console.info("PBKDF2-HMAC-SHA256 20ms迭代次数 %d", iterations);
+		Assert.isTrue(iterations > 0, "PBKDF2迭代次数估算失败");
+	}
+
+	@Test
+	public void bcryptServiceTest() throws Exception {
+		// 计算耗时需远大于排队请求的超时时间, 保证超时发生时队列仍被占满
+		String hashed = BCrypt.hashpw("password", BCrypt.gensalt(12));
+		try (BCryptService service = new BCryptService(1, 1)) {
+			CompletableFuture<Boolean> running = service.checkpw("password", hashed);
+			CompletableFuture<Boolean> queued = service.checkpw("password", hashed, 50, TimeUnit.MILLISECONDS);
+			CompletableFuture<Boolean> rejected = service.checkpw("password", hashed);
+			Assert.isTrue(rejected.isCompletedExceptionally() && service.getRejected() == 1, "BCrypt队列上限测试失败");
+			try {
+				queued.get();
+				Assert.isTrue(false, "BCrypt超时测试失败");
+			}
+			catch (ExecutionException e) {
+				Assert.isTrue(e.getCause() instanceof TimeoutException && service.getTimedOut() == 1, "BCrypt超时测试失败");
+			}
+			// 超时的请求已移出队列, 空出的名额可以再次排队
+			Assert.isTrue(service.getQueueSize() == 0, "BCrypt超时请求未移出队列");
+			CompletableFuture<Boolean> requeued = service.checkpw("password", hashed);
+			Assert.isTrue(!requeued.isCompletedExceptionally(), "BCrypt超时请求占用队列");
+			String callbackThread = running.thenApply(matched -> Thread.currentThread().getName()).get();
+			Assert.isTrue(!callbackThread.startsWith("bcrypt"), "BCrypt回调在计算线程中执行");
+			Assert.isTrue(running.get() && requeued.get(), "BCrypt异步校验失败");
+			Assert.isTrue(service.sample().size() == 7, "BCrypt统计测试失败");
+		}
+	}
+
+	@Test
+	public void bcryptEngineTest() {
+		Random random = new Random(44);
+		for (int length = 1; length <= 80; length++) {
+			byte[] password = new byte[length];
+			byte[] salt = new byte[16];
+			random.nextBytes(password);
+			random.nextBytes(salt);
+			byte[] expected = new BCrypt().crypt_raw(password, salt, 4, BCrypt.bf_crypt_ciphertext.clone());
+			Assert.isTrue(Arrays.equals(expected, BCryptEngine.crypt(password, salt, 4)), "BCrypt引擎结果不一致");
+		}
+		String hashed = "$2a$06$If6bvum7DFjUnE9p2uDeDu0YHzrHM6tf.iqN8.yx.jNN1ILEf7h0i";
+		Assert.isTrue(hashed.equals(BCrypt.hashpw("abc", "$2a$06$If6bvum7DFjUnE9p2uDeDu")), "BCrypt测试向量失败");
+	}
+
+	@Test
+	public void hash64Test() throws IOException {
+		byte[] check = "123456789".getBytes(Charsets.UTF_8);
+		Assert.isTrue(Hash64.CRC32C.hash(check) == 0xe3069283L, "CRC32C测试失败");
+		Crc32c table = new Crc32c(false);
+		table.update(check);
+		Assert.isTrue(table.getValue() == 0xe3069283L, "CRC32C查表实现测试失败");
+
+		byte[] fox = "The quick brown fox jumps over the lazy dog".getBytes(Charsets.UTF_8);
+		Murmur3Hash128 murmur = new Murmur3Hash128();
+		murmur.update(fox);
+		byte[] murmurValue = new byte[16];
+		murmur.getValue(murmurValue, 0);
+		Assert.isTrue("6c1b07bc7bbc4be347939ac4a93c437a".equals(Hex.toHexString(murmurValue)), "Murmur3测试失败");
+		Assert.isTrue(Hash64.XXHASH64.hash(new byte[0]) == 0xef46db3751d8e999L, "xxHash64测试失败");
+		Assert.isTrue(Hash64.XXHASH64.hash("Nobody inspects the spammish repetition".getBytes(Charsets.UTF_8)) == 0xfbcea83c8a378bf1L, "xxHash64测试失败");
+
+		byte[] data = new byte[1000];
+		new Random(45).nextBytes(data);
+		for (Hash64 hash : Hash64.values()) {
+			long expected = hash.hash(data);
+			ByteBuffer direct = ByteBuffer.allocateDirect(data.length);
+			direct.put(data).flip();
+			Assert.isTrue(hash.hash(direct) == expected && !direct.hasRemaining(), hash + "直接内存测试失败");
+			Assert.isTrue(hash.hash(new ByteArrayInputStream(data)) == expected, hash + "输入流测试失败");
+			AbstractChecksum checksum = hash.newChecksum();
+			for (int i = 0; i < data.length; i += 7) {
+				checksum.update(data, i, Math.min(7, data.length - i));
+			}
+			Assert.isTrue(checksum.getValue() == expected, hash + "增量计算测试失败");
+		}
+	}
+
+	@Test
+	public void chunkedDigestTest() throws Exception {
+		int chunkLength = 1000;
+		byte[] data = Randoms.nextBytes(7 * chunkLength + 123);
+		Path path = Files.createTempFile("chunked", ".bin");
+		try {
+			Files.write(path, data);
+			// 每个分块在"不同请求"中处理, 之间只保留序列化的状态
+			byte[] state = new ChunkedDigest(Digest.Algorithm.SHA256).getState();
+			for (int off = 0; off < data.length; off += chunkLength) {
+				ChunkedDigest digest = ChunkedDigest.fromState(state);
+				digest.update(new ByteArrayInputStream(data, off, Math.min(chunkLength, data.length - off)));
+				state = digest.getState();
+			}
+			ChunkedDigest digest = ChunkedDigest.fromState(state);
+			Assert.isTrue(digest.getChunkCount() == 8 && digest.getLength() == data.length, "分块摘要状态测试失败");
+			byte[] root = Digest.getTreeHash(path, Digest.Algorithm.SHA256, chunkLength, ForkJoinPool.commonPool());
+			Assert.isTrue(Arrays.equals(root, digest.digest()), "分块摘要测试失败");
+		}
+		finally {
+			Files.delete(path);
+		}
+	}
+
+	@Test
+	public void directoryDigestTest() throws Exception {
+		Path root = Files.createTempDirectory("digest");
+		try (DirectoryDigest directoryDigest = new DirectoryDigest(Digest.Algorithm.SHA256, 2)) {
+			for (int i = 0; i < 20; i++) {
+				Path file = root.resolve("dir" + i % 3).resolve("file" + i);
+				Files.createDirectories(file.getParent());
+				Files.write(file, Randoms.nextBytes(100 * i));
+			}
+			DirectoryDigest.Manifest manifest = directoryDigest.digest(root);
+			Assert.isTrue(manifest.getEntries().size() == 20 && manifest.getHashedCount() == 20, "目录摘要测试失败");
+			Path file = root.resolve("dir1/file7");
+			Assert.isTrue(Arrays.equals(Digest.get(file, Digest.Algorithm.SHA256), manifest.getEntries().get("dir1/file7").getHash()), "目录摘要测试失败");
+
+			StringWriter writer = new StringWriter();
+			manifest.write(writer);
+			DirectoryDigest.Manifest stored = DirectoryDigest.Manifest.read(new StringReader(writer.toString()));
+			Assert.isTrue(stored.getRootHash().equals(manifest.getRootHash()), "目录摘要清单读写测试失败");
+			// 路径中的换行及反斜杠不能破坏清单格式
+			TreeMap<String, DirectoryDigest.Entry> escapes = new TreeMap<>();
+			escapes.put("dir\nline\\name\r", new DirectoryDigest.Entry(1, 2, new byte[32]));
+			DirectoryDigest.Manifest escaped = new DirectoryDigest.Manifest(Digest.Algorithm.SHA256, escapes, 0);
+			StringWriter escapedWriter = new StringWriter();
+			escaped.write(escapedWriter);
+			DirectoryDigest.Manifest escapedStored = DirectoryDigest.Manifest.read(new StringReader(escapedWriter.toString()));
+			Assert.isTrue(escapedStored.getEntries().keySet().equals(escapes.keySet()), "目录摘要清单路径转义测试失败");
+
+			Files.write(file, Randoms.nextBytes(10));
+			DirectoryDigest.Manifest changed = directoryDigest.digest(root, stored);
+			Assert.isTrue(changed.getHashedCount() == 1, "目录摘要缓存测试失败");
+			Assert.isTrue(changed.getChanges(stored).equals(Collections.singletonList("dir1/file7")), "目录摘要变化测试失败");
+			Assert.isTrue(!changed.getRootHash().equals(manifest.getRootHash()), "目录摘要测试失败");
+
+			// 格式错误的大小字段
+			try {
+				DirectoryDigest.Manifest.read(new StringReader(writer.toString().replace(" 100 ", " x100 ")));
+				Assert.isTrue(false, "目录摘要清单格式测试失败");
+			}
+			catch (IOException ignore) {
+			}
+
+			if (File.separatorChar == '/') {
+				// 文件名中的反斜杠不能与目录分隔符混淆
+				Files.write(root.resolve("dir1\\file7"), Randoms.nextBytes(10));
+				DirectoryDigest.Manifest backslash = directoryDigest.digest(root, changed);
+				Assert.isTrue(backslash.getEntries().containsKey("dir1\\file7") && backslash.getEntries().containsKey("dir1/file7"), "目录摘要路径测试失败");
+				Assert.isTrue(backslash.getChanges(changed).equals(Collections.singletonList("dir1\\file7")), "目录摘要路径测试失败");
+			}
+
+			Path link = root.resolve("link");
+			try {
+				Files.createSymbolicLink(link, root.resolve("dir0/file0"));
+			}
+			catch (UnsupportedOperationException | IOException e) {
+				return;
+			}
+			DirectoryDigest.Manifest linked = directoryDigest.digest(root);
+			DirectoryDigest.Entry entry = linked.getEntries().get("link");
+			Assert.isTrue(entry != null && entry.isSymbolicLink(), "目录摘要符号链接测试失败");
+			Files.delete(link);
+			Files.createSymbolicLink(link, root.resolve("dir0/file3"));
+			DirectoryDigest.Manifest relinked = directoryDigest.digest(root, linked);
+			Assert.isTrue(relinked.getChanges(linked).equals(Collections.singletonList("link")), "目录摘要符号链接测试失败");
+		}
+		finally {
+			try (Stream<Path> paths = Files.walk(root)) {
+				paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+			}
+		}
+	}
 }
@@ -0,0 +1,134 @@
+/*
+ *    Copyright [2019] [shuwei.wang (c) wswill@foxmail.com]
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package org.spreadme.commons.id;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.spreadme.commons.id.support.NumericGenerator;
+import org.spreadme.commons.id.support.PrefixedLeftNumericGenerator;
+import org.spreadme.commons.id.support.SnowflakeLongGenerator;
+import org.spreadme.commons.id.support.TimeBasedIdentifierGenerator;
+import org.spreadme.commons.id.support.UUIDGenerator;
+
+/**
+ * JMH benchmark of every {@link IdentifierGenerator}
+ * <p>single threaded latency, throughput with 1/4/16/64 threads and the bytes allocated per id (gc profiler).
+ * The generators are shared by all threads except {@link PrefixedLeftNumericGenerator}, which is not thread safe
+ * and is measured per thread.</p>
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=org.spreadme.commons.id.IdentifierGeneratorBenchmark
+ * </pre>
+ * @author shuwei.wang
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IdentifierGeneratorBenchmark {
+
+	private static final int[] THREADS = {1, 4, 16, 64};
+
+	private SnowflakeLongGenerator snowflakeLongGenerator;
+
+	private TimeBasedIdentifierGenerator timeBasedIdentifierGenerator;
+
+	private NumericGenerator numericGenerator;
+
+	private UUIDGenerator uuidGenerator;
+
+	@Setup
+	public void setup() {
+		snowflakeLongGenerator = new SnowflakeLongGenerator(1, 1);
+		timeBasedIdentifierGenerator = new TimeBasedIdentifierGenerator();
+		numericGenerator = new NumericGenerator(true, 0);
+		uuidGenerator = new UUIDGenerator();
+	}
+
+	@Benchmark
+	public long snowflake() {
+		return snowflakeLongGenerator.nextId();
+	}
+
+	@Benchmark
+	public String timeBased() {
+		return timeBasedIdentifierGenerator.nextStringIdentifier();
+	}
+
+	@Benchmark
+	public String numeric() {
+		return numericGenerator.nextStringIdentifier();
+	}
+
+	@Benchmark
+	public String prefixedLeftNumeric(PrefixedLeftNumericState state) {
+		return state.generator.nextStringIdentifier();
+	}
+
+	@Benchmark
+	public UUID uuid() {
+		return uuidGenerator.nextIdentifier();
+	}
+
+	/**
+	 * PrefixedLeftNumericGenerator is not thread safe, every benchmark thread gets its own instance
+	 */
+	@State(Scope.Thread)
+	public static class PrefixedLeftNumericState {
+
+		private PrefixedLeftNumericGenerator generator;
+
+		@Setup
+		public void setup() {
+			generator = new PrefixedLeftNumericGenerator("ID", true, 12);
+		}
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		Options latency = new OptionsBuilder()
+				.include(IdentifierGeneratorBenchmark.class.getSimpleName())
+				.mode(Mode.AverageTime)
+				.timeUnit(TimeUnit.NANOSECONDS)
+				.threads(1)
+				.addProfiler(GCProfiler.class)
+				.build();
+		new Runner(latency).run();
+
+		for (int threads : THREADS) {
+			Options throughput = new OptionsBuilder()
+					.include(IdentifierGeneratorBenchmark.class.getSimpleName())
+					.mode(Mode.Throughput)
+					.timeUnit(TimeUnit.MILLISECONDS)
+					.threads(threads)
+					.build();
+			new Runner(throughput).run();
+		}
+	}
+}
@@ -17,20 +17,32 @@
 package org.spreadme.commons.io;
 
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Objects;
+import java.util.Random;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import org.junit.Before;
 import org.junit.Test;
 import org.spreadme.commons.codec.Hex;
 import org.spreadme.commons.digest.Digest;
+import org.spreadme.commons.lang.Assert;
 import org.spreadme.commons.lang.Charsets;
 import org.spreadme.commons.system.SystemInfo;
 import org.spreadme.commons.util.ClassUtil;
@@ -149,4 +161,128 @@ public class IOTest {
 			throw new IllegalStateException(e.getMessage(), e);
 		}
 	}
+
+	@Test
+	public void testBlobStore() throws Exception {
+		Path root = Files.createTempDirectory("blobs");
+		try {
+			BlobStore store = new BlobStore(root);
+			byte[] attachment = StringUtil.randomString(50).getBytes(StandardCharsets.UTF_8);
+			String hash = store.put(attachment);
+			Assert.isTrue(hash.equals(Digest.toHexString(attachment, Digest.Algorithm.SHA256)), "blob hash error");
+			Assert.isTrue(hash.equals(store.put(new ByteArrayInputStream(attachment))) && store.getRefs(hash) == 2, "blob dedup error");
+
+			ByteBuffer mapped = store.map(hash);
+			byte[] content = new byte[mapped.remaining()];
+			mapped.get(content);
+			Assert.isTrue(Arrays.equals(attachment, content), "blob content error");
+
+			store.release(hash);
+			Assert.isTrue(store.gc() == 0 && store.contains(hash), "blob gc error");
+			store.release(hash);
+			Assert.isTrue(store.gc() == 1 && !store.contains(hash), "blob gc error");
+
+			// left behind by an interrupted put
+			Path orphan = Files.write(root.resolve("tmp").resolve("blob0.tmp"), attachment);
+			hash = store.put(attachment);
+			store.gc();
+			Assert.isTrue(!Files.exists(orphan) && store.contains(hash), "blob gc temp file error");
+			Path refs = root.resolve("objects").resolve(hash.substring(0, 2)).resolve(hash.substring(2, 4)).resolve(hash + ".refs");
+			Files.write(refs, new byte[0]);
+			try {
+				store.retain(hash);
+				Assert.isTrue(false, "blob corrupted refs error");
+			}
+			catch (IOException ignore) {
+			}
+		}
+		finally {
+			try (Stream<Path> paths = Files.walk(root)) {
+				paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+			}
+		}
+	}
+
+	@Test
+	public void testBufferPool() throws Exception {
+		RecyclingBufferPool pool = new RecyclingBufferPool(4, 4, true);
+		byte[] data = StringUtil.randomString(50).getBytes(StandardCharsets.UTF_8);
+		try (FastByteArrayOutputStream out = new FastByteArrayOutputStream(16, pool)) {
+			for (int i = 0; i < 100; i++) {
+				out.write(data);
+			}
+			Assert.isTrue(out.size() == 5000 && pool.getLeaks().size() > 1, "pooled stream error");
+			byte[] content = out.toByteArray();
+			Assert.isTrue(Arrays.equals(Arrays.copyOfRange(content, 4950, 5000), data), "pooled stream error");
+			out.reset();
+			Assert.isTrue(pool.getLeaks().isEmpty(), "pooled stream reset error");
+			out.write(data);
+			Assert.isTrue(Arrays.equals(data, out.toByteArrayUnsafe()), "pooled stream error");
+		}
+		Assert.isTrue(pool.getLeaks().isEmpty(), "pooled stream close error");
+
+		byte[] buffer = pool.acquire(1000);
+		Assert.isTrue(buffer.length == 1024 && pool.acquire(1000) != buffer, "buffer pool error");
+		Assert.isTrue(pool.getLeaks().size() == 2, "buffer pool leak detection error");
+		pool.release(buffer);
+		Assert.isTrue(pool.acquire(1024) == buffer, "buffer pool recycle error");
+		pool.release(buffer);
+		try {
+			pool.release(buffer);
+			Assert.isTrue(false, "buffer pool double release error");
+		}
+		catch (IllegalStateException ignore) {
+		}
+
+		// a single exactly full pooled block must not be handed out and then recycled
+		RecyclingBufferPool exactPool = new RecyclingBufferPool(4, 4, false);
+		byte[] exact = Arrays.copyOf(data, 256);
+		byte[] unsafe;
+		try (FastByteArrayOutputStream out = new FastByteArrayOutputStream(256, exactPool)) {
+			out.write(exact);
+			unsafe = out.toByteArrayUnsafe();
+		}
+		byte[] recycled = exactPool.acquire(256);
+		Arrays.fill(recycled, (byte) 1);
+		Assert.isTrue(recycled != unsafe && Arrays.equals(exact, unsafe), "pooled stream exact fit error");
+	}
+
+	@Test
+	public void testByteBlockOutputStream() throws Exception {
+		// large enough for direct blocks to reach the 1MB cap
+		byte[] data = new byte[3_000_000];
+		new Random(50).nextBytes(data);
+		Path path = Files.createTempFile("blocks", ".bin");
+		try (ByteBlockOutputStream heap = new ByteBlockOutputStream(16, new RecyclingBufferPool(4, 4, false));
+			 ByteBlockOutputStream direct = ByteBlockOutputStream.direct(4096)) {
+			for (ByteBlockOutputStream out : Arrays.asList(heap, direct)) {
+				out.write(data[0]);
+				out.write(data, 1, data.length - 1);
+				Assert.isTrue(out.size() == data.length && Arrays.equals(data, out.toByteArray()), "block stream error");
+
+				byte[] read = new byte[data.length];
+				InputStream in = out.getInputStream();
+				int pos = 0;
+				int n;
+				while ((n = in.read(read, pos, Math.min(7777, read.length - pos))) > 0) {
+					pos += n;
+				}
+				Assert.isTrue(pos == data.length && in.read() == -1 && Arrays.equals(data, read), "block input stream error");
+
+				try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+					Assert.isTrue(out.writeTo(channel) == data.length, "block gathering write error");
+				}
+				Assert.isTrue(Arrays.equals(data, Files.readAllBytes(path)), "block gathering write error");
+
+				ByteArrayOutputStream copy = new ByteArrayOutputStream();
+				out.writeTo(copy);
+				Assert.isTrue(Arrays.equals(data, copy.toByteArray()), "block stream write error");
+				out.reset();
+				Assert.isTrue(out.size() == 0, "block stream reset error");
+			}
+		}
+		finally {
+			Files.delete(path);
+		}
+	}
 }
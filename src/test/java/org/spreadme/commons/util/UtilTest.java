@@ -20,6 +20,8 @@ import java.awt.*;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.Duration;
 import java.time.temporal.ChronoUnit;
 import java.util.Date;
@@ -34,9 +36,14 @@ import org.junit.Test;
 import org.spreadme.commons.codec.Hex;
 import org.spreadme.commons.id.IdentifierGenerator;
 import org.spreadme.commons.id.support.PrefixedLeftNumericGenerator;
+import org.spreadme.commons.id.support.FileLockWorkerIdLeaseStore;
+import org.spreadme.commons.id.support.GeneratorStatistics;
+import org.spreadme.commons.id.support.NumericGenerator;
 import org.spreadme.commons.id.support.SnowflakeLongGenerator;
 import org.spreadme.commons.id.support.TimeBasedIdentifierGenerator;
+import org.spreadme.commons.id.support.WorkerIdAllocator;
 import org.spreadme.commons.io.SizeUnit;
+import org.spreadme.commons.lang.Assert;
 import org.spreadme.commons.lang.ContentType;
 import org.spreadme.commons.lang.Dates;
 import org.spreadme.commons.lang.Randoms;
@@ -81,6 +88,72 @@ public class UtilTest {
 		}
 	}
 
+	@Test
+	public void testIdDecode() {
+		SnowflakeLongGenerator snowflake = new SnowflakeLongGenerator(3, 7);
+		long before = System.currentTimeMillis();
+		long id = snowflake.nextId();
+		long timestamp = SnowflakeLongGenerator.getTimestamp(id);
+		Console.info("longid: %d, timestamp: %d, datacenter: %d, worker: %d, sequence: %d", id, timestamp,
+				SnowflakeLongGenerator.getDatacenterId(id), SnowflakeLongGenerator.getWorkerId(id),
+				SnowflakeLongGenerator.getSequence(id));
+		Assert.isTrue(timestamp >= before && timestamp <= System.currentTimeMillis(), "snowflake timestamp decode failed");
+		Assert.isTrue(SnowflakeLongGenerator.getDatacenterId(id) == 7, "snowflake datacenter decode failed");
+		Assert.isTrue(SnowflakeLongGenerator.getWorkerId(id) == 3, "snowflake worker decode failed");
+		Assert.isTrue(id >= SnowflakeLongGenerator.minIdOf(timestamp) && id <= SnowflakeLongGenerator.maxIdOf(timestamp),
+				"snowflake id range failed");
+
+		TimeBasedIdentifierGenerator timeBased = new TimeBasedIdentifierGenerator();
+		before = System.currentTimeMillis();
+		String timeBasedId = timeBased.nextStringIdentifier();
+		long millis = timeBased.getMillisecondsFromId(timeBasedId);
+		Assert.isTrue(millis >= before && millis <= System.currentTimeMillis(), "timebase decode failed");
+		Assert.isTrue(timeBasedId.compareTo(timeBased.minIdentifierOf(millis)) >= 0
+				&& timeBasedId.compareTo(timeBased.maxIdentifierOf(millis)) <= 0, "timebase id range failed");
+		Assert.isTrue(timeBased.getCounterFromId(timeBasedId) >= 0, "timebase counter decode failed");
+
+		PrefixedLeftNumericGenerator prefixed = new PrefixedLeftNumericGenerator("ID", false, 6);
+		prefixed.nextStringIdentifier();
+		Assert.isTrue(prefixed.getValueFromId(prefixed.nextStringIdentifier()) == 2, "prefixed numeric decode failed");
+		NumericGenerator numeric = new NumericGenerator(true, -5);
+		Assert.isTrue(numeric.getValueFromId(numeric.nextStringIdentifier()) == -5, "numeric decode failed");
+	}
+
+	@Test
+	public void testGeneratorStatistics() {
+		SnowflakeLongGenerator generator = new SnowflakeLongGenerator(1, 1);
+		GeneratorStatistics statistics = new GeneratorStatistics("snowflake");
+		generator.setStatistics(statistics);
+		for (int i = 0; i < 10000; i++) {
+			generator.nextId();
+		}
+		statistics.sample().forEach(m -> Console.info("%s: %s", m.name(), m.value()));
+		Assert.isTrue(statistics.getGenerated() == 10000, "generator statistics failed");
+	}
+
+	@Test
+	public void testWorkerIdAllocator() throws IOException {
+		Path leaseDir = Files.createTempDirectory("worker-lease");
+		try (WorkerIdAllocator first = new WorkerIdAllocator(new FileLockWorkerIdLeaseStore(leaseDir));
+			 WorkerIdAllocator second = new WorkerIdAllocator(new FileLockWorkerIdLeaseStore(leaseDir))) {
+			SnowflakeLongGenerator generator = new SnowflakeLongGenerator(first, 1);
+			long secondId = second.allocate();
+			Console.info("first worker id: %d, second worker id: %d, longid: %d",
+					first.getWorkerId(), secondId, generator.nextId());
+			Assert.isTrue(first.getWorkerId() != secondId, "worker id leased twice");
+			first.close();
+			try {
+				generator.nextId();
+				Assert.isTrue(false, "generated id after the worker id lease was released");
+			}
+			catch (IllegalStateException ignore) {
+			}
+			try (WorkerIdAllocator third = new WorkerIdAllocator(new FileLockWorkerIdLeaseStore(leaseDir))) {
+				Assert.isTrue(third.allocate() == 0L, "released worker id not reused");
+			}
+		}
+	}
+
 	@Test
 	public void testDates() throws Exception {
 		final int poolSize = 8;